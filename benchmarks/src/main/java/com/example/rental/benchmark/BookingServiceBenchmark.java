@@ -0,0 +1,137 @@
+package com.example.rental.benchmark;
+
+import com.example.rental.dto.BookingRequest;
+import com.example.rental.model.Booking;
+import com.example.rental.model.Booking.BookingStatus;
+import com.example.rental.model.Property;
+import com.example.rental.model.Role;
+import com.example.rental.model.User;
+import com.example.rental.repo.BookingRepository;
+import com.example.rental.repo.PropertyRepository;
+import com.example.rental.repo.UserRepository;
+import com.example.rental.service.BookingAvailabilityIndex;
+import com.example.rental.service.BookingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overlap checks behind {@link BookingService#createBooking} against H2.
+ * <p>
+ * Every property carries {@code staysPerProperty} back-to-back confirmed stays and
+ * each request asks for dates inside one of them, so the booking is always
+ * rejected and the table does not grow between iterations. {@code createConflicting}
+ * measures the full admission path, where the availability index answers at the
+ * property's version; the other two isolate that versioned in-memory lookup from
+ * the COUNT query that only runs until the index is warm. The first lookup of each
+ * property loads its stays; every later one is answered from memory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingServiceBenchmark {
+    private static final int PROPERTIES = 50;
+    private static final LocalDate FIRST_NIGHT = LocalDate.of(2030, 1, 1);
+
+    @Param({"10", "200"})
+    public int staysPerProperty;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private BookingRepository bookingRepository;
+    private BookingAvailabilityIndex availabilityIndex;
+    private final List<Long> propertyIds = new ArrayList<>();
+    private final List<Long> versions = new ArrayList<>();
+    private String guestEmail;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = RentalContext.start();
+        bookingService = context.getBean(BookingService.class);
+        bookingRepository = context.getBean(BookingRepository.class);
+        availabilityIndex = context.getBean(BookingAvailabilityIndex.class);
+        PropertyRepository propertyRepository = context.getBean(PropertyRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+
+        User guest = userRepository.save(new User("bench-guest@test.com", "pass", "Guest", Role.USER));
+        guestEmail = guest.getEmail();
+        for (int p = 0; p < PROPERTIES; p++) {
+            Property property = new Property("Bench Villa " + p, "Bench Bay", 1000.0);
+            property.setAvailable(true);
+            property.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+            property = propertyRepository.save(property);
+            propertyIds.add(property.getId());
+
+            List<Booking> stays = new ArrayList<>();
+            for (int s = 0; s < staysPerProperty; s++) {
+                Booking booking = new Booking();
+                booking.setProperty(property);
+                booking.setUser(guest);
+                booking.setCheckInDate(FIRST_NIGHT.plusDays(s * 3L));
+                booking.setCheckOutDate(FIRST_NIGHT.plusDays(s * 3L + 3));
+                booking.setTotalAmount(3000.0);
+                booking.setStatus(BookingStatus.CONFIRMED);
+                stays.add(booking);
+            }
+            bookingRepository.saveAll(stays);
+        }
+        // The version each lookup is made at, as BookingService reads it with the property.
+        for (Long propertyId : propertyIds) {
+            versions.add(propertyRepository.findVersionById(propertyId).orElseThrow());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object createConflicting() {
+        BookingRequest request = new BookingRequest();
+        LocalDate checkIn = conflictingCheckIn();
+        request.setPropertyId(randomProperty());
+        request.setCheckInDate(checkIn);
+        request.setCheckOutDate(checkIn.plusDays(1));
+        try {
+            return bookingService.createBooking(request, guestEmail);
+        } catch (ResponseStatusException expected) {
+            return expected;
+        }
+    }
+
+    @Benchmark
+    public boolean overlapIndexed() {
+        LocalDate checkIn = conflictingCheckIn();
+        int property = ThreadLocalRandom.current().nextInt(propertyIds.size());
+        return availabilityIndex.hasOverlap(propertyIds.get(property), versions.get(property), checkIn, checkIn.plusDays(1));
+    }
+
+    @Benchmark
+    public boolean overlapQuery() {
+        LocalDate checkIn = conflictingCheckIn();
+        return bookingRepository.existsOverlappingBooking(
+                randomProperty(),
+                checkIn,
+                checkIn.plusDays(1),
+                List.of(BookingStatus.REQUESTED, BookingStatus.CONFIRMED)
+        );
+    }
+
+    private Long randomProperty() {
+        return propertyIds.get(ThreadLocalRandom.current().nextInt(propertyIds.size()));
+    }
+
+    private LocalDate conflictingCheckIn() {
+        return FIRST_NIGHT.plusDays(ThreadLocalRandom.current().nextInt(staysPerProperty * 3));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.rental.benchmark;
+
+import com.example.rental.model.Role;
+import com.example.rental.model.User;
+import com.example.rental.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens/sec for the request-time JWT path. {@code legacyPerRequest} reproduces the
+ * old flow (key decode + parser build + parse, three times per request) as the
+ * baseline for {@code verify}, which parses once with the prebuilt parser.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+    // Same key as JwtService; only used to rebuild the legacy per-call parser.
+    private static final String SECRET_KEY = "3cfa76ef14937c1c0ea519f8fc057a80fcd04a7420f8e4254b8d20a3a3039c4d";
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        token = jwtService.generateToken(new User("bench@test.com", "pass", "Bench", Role.USER));
+    }
+
+    @Benchmark
+    public boolean legacyPerRequest() {
+        String subject = legacyClaims(token).getSubject();
+        return subject.equals(legacyClaims(token).getSubject())
+                && legacyClaims(token).getExpiration().getTime() > System.currentTimeMillis();
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return jwtService.verify(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(new User("bench@test.com", "pass", "Bench", Role.USER));
+    }
+
+    private static Claims legacyClaims(String token) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+}
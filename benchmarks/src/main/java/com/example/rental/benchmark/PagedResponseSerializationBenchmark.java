@@ -0,0 +1,54 @@
+package com.example.rental.benchmark;
+
+import com.example.rental.dto.PagedResponse;
+import com.example.rental.dto.PropertyResponse;
+import com.example.rental.model.Property;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encoding of a search page as the controller returns it, using an
+ * ObjectMapper configured the way Spring MVC builds its own.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PagedResponseSerializationBenchmark {
+
+    @Param({"6", "50", "500"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private PagedResponse<PropertyResponse> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<PropertyResponse> items = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Property property = new Property("Bench Villa " + i, "Bench Bay", 1000.0 + i);
+            property.setId((long) i + 1);
+            property.setAvailable(true);
+            property.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+            property.setVersion(0L);
+            items.add(PropertyResponse.from(property));
+        }
+        page = PagedResponse.from(new PageImpl<>(items, PageRequest.of(0, pageSize), pageSize * 10L));
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.rental.benchmark;
+
+import com.example.rental.dto.PagedResponse;
+import com.example.rental.dto.PropertyResponse;
+import com.example.rental.model.Booking;
+import com.example.rental.model.Booking.BookingStatus;
+import com.example.rental.model.Property;
+import com.example.rental.model.Role;
+import com.example.rental.model.User;
+import com.example.rental.repo.BookingRepository;
+import com.example.rental.repo.PropertyRepository;
+import com.example.rental.repo.UserRepository;
+import com.example.rental.service.PropertySearchIndex;
+import com.example.rental.service.PropertyService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PropertyService#searchApproved} at several catalog sizes. {@code textQuery}
+ * is answered by the trigram index and hydrated with one fetch; {@code priceFilter}
+ * has no text and goes through the database query. The {@code ForDates} variants
+ * add a stay filter against {@value #STAYS_PER_PROPERTY} confirmed stays on every
+ * other property, which always runs as a NOT EXISTS against the booking table.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropertySearchBenchmark {
+    private static final String[] CITIES = {"Hyderabad", "Goa", "Ooty", "Manali", "Kochi", "Jaipur", "Pune", "Shimla"};
+    private static final String[] KINDS = {"Villa", "Cottage", "Flat", "Cabin", "Loft"};
+    private static final int STAYS_PER_PROPERTY = 20;
+    private static final LocalDate FIRST_NIGHT = LocalDate.of(2030, 1, 1);
+    private static final LocalDate CHECK_IN = FIRST_NIGHT.plusDays(31);
+    private static final LocalDate CHECK_OUT = CHECK_IN.plusDays(2);
+
+    @Param({"100", "1000", "10000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private PropertyService propertyService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = RentalContext.start();
+        propertyService = context.getBean(PropertyService.class);
+        PropertyRepository propertyRepository = context.getBean(PropertyRepository.class);
+        PropertySearchIndex searchIndex = context.getBean(PropertySearchIndex.class);
+        BookingRepository bookingRepository = context.getBean(BookingRepository.class);
+        User guest = context.getBean(UserRepository.class)
+                .save(new User("search-bench-guest@test.com", "pass", "Guest", Role.USER));
+
+        List<Property> catalog = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            Property property = new Property(
+                    KINDS[i % KINDS.length] + " " + i,
+                    CITIES[i % CITIES.length],
+                    500.0 + (i * 37 % 9500)
+            );
+            property.setAvailable(i % 3 != 0);
+            property.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+            catalog.add(property);
+        }
+        propertyRepository.saveAll(catalog).forEach(searchIndex::upsert);
+
+        List<Booking> stays = new ArrayList<>();
+        for (int i = 0; i < catalog.size(); i += 2) {
+            for (int s = 0; s < STAYS_PER_PROPERTY; s++) {
+                Booking booking = new Booking();
+                booking.setProperty(catalog.get(i));
+                booking.setUser(guest);
+                booking.setCheckInDate(FIRST_NIGHT.plusDays(s * 3L));
+                booking.setCheckOutDate(FIRST_NIGHT.plusDays(s * 3L + 2));
+                booking.setTotalAmount(2000.0);
+                booking.setStatus(BookingStatus.CONFIRMED);
+                stays.add(booking);
+            }
+        }
+        bookingRepository.saveAll(stays);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PagedResponse<PropertyResponse> textQuery() {
+        return propertyService.searchApproved("goa", 1000.0, 8000.0, true, null, null, 0, 6, "price", "asc");
+    }
+
+    @Benchmark
+    public PagedResponse<PropertyResponse> priceFilter() {
+        return propertyService.searchApproved(null, 1000.0, 8000.0, true, null, null, 0, 6, "price", "asc");
+    }
+
+    @Benchmark
+    public PagedResponse<PropertyResponse> textQueryForDates() {
+        return propertyService.searchApproved("goa", 1000.0, 8000.0, true, CHECK_IN, CHECK_OUT, 0, 6, "price", "asc");
+    }
+
+    @Benchmark
+    public PagedResponse<PropertyResponse> priceFilterForDates() {
+        return propertyService.searchApproved(null, 1000.0, 8000.0, true, CHECK_IN, CHECK_OUT, 0, 6, "price", "asc");
+    }
+}
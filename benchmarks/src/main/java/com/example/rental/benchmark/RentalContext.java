@@ -0,0 +1,28 @@
+package com.example.rental.benchmark;
+
+import com.example.rental.RentalApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.UUID;
+
+/**
+ * Boots the application against its own in-memory H2 database with SQL logging
+ * off, so each benchmark trial starts from an empty schema.
+ */
+final class RentalContext {
+    private RentalContext() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(RentalApplication.class)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "spring.main.banner-mode=off",
+                        "server.port=0",
+                        "logging.level.root=WARN"
+                )
+                .run();
+    }
+}
@@ -0,0 +1,65 @@
+#!/bin/bash
+# Compares platform-thread and virtual-thread request handling under high concurrency.
+# Starts the packaged jar once per mode, drives a blocking JPA endpoint with wrk at each
+# connection count, and writes one CSV row per run.
+#
+# Requirements: JDK 21+ (virtual threads), wrk, and a packaged jar (./mvnw package -DskipTests).
+# Raise the open-file limit first, e.g. `ulimit -n 65536`, or wrk cannot open 10k sockets.
+# Rate limiting is switched off: every wrk connection comes from one address, which the
+# search limit would otherwise cap at 60 requests a minute and turn the run into 429s.
+
+JAR=${JAR:-$(ls target/rental-*-exec.jar | head -1)}
+PORT=${PORT:-8080}
+MANAGEMENT_PORT=${MANAGEMENT_PORT:-8081}
+ENDPOINT=${ENDPOINT:-"/properties/search?minPrice=500&maxPrice=5000&size=20"}
+CONNECTIONS=${CONNECTIONS:-"1000 2500 5000 10000"}
+DURATION=${DURATION:-30s}
+WRK_THREADS=${WRK_THREADS:-8}
+OUT=${OUT:-load-test-threads.csv}
+
+if ! command -v wrk > /dev/null; then
+    echo "wrk is required (https://github.com/wg/wrk)"
+    exit 1
+fi
+
+echo "mode,connections,requests_per_sec,p50,p99,socket_errors,non_2xx" > "$OUT"
+
+run_mode() {
+    local mode=$1
+    shift
+    echo "▶ Starting $mode ($*)"
+    java -jar "$JAR" --server.port="$PORT" --management.server.port="$MANAGEMENT_PORT" --spring.jpa.show-sql=false \
+        --rental.rate-limit.enabled=false "$@" \
+        > "load-test-$mode.log" 2>&1 &
+    local pid=$!
+
+    for _ in $(seq 1 60); do
+        curl -s -o /dev/null "http://localhost:$MANAGEMENT_PORT/actuator/health" && break
+        sleep 1
+    done
+
+    for c in $CONNECTIONS; do
+        echo "  $c connections for $DURATION"
+        local report
+        report=$(wrk -t"$WRK_THREADS" -c"$c" -d"$DURATION" --latency --timeout 10s "http://localhost:$PORT$ENDPOINT")
+        local rps p50 p99 errors non2xx
+        rps=$(echo "$report" | awk '/Requests\/sec/ {print $2}')
+        p50=$(echo "$report" | awk '$1 == "50%" {print $2}')
+        p99=$(echo "$report" | awk '$1 == "99%" {print $2}')
+        errors=$(echo "$report" | awk -F'[ ,]+' '/Socket errors/ {print $4+$6+$8+$10}')
+        non2xx=$(echo "$report" | awk '/Non-2xx/ {print $5}')
+        echo "$mode,$c,$rps,$p50,$p99,${errors:-0},${non2xx:-0}" >> "$OUT"
+    done
+
+    kill "$pid"
+    wait "$pid" 2> /dev/null
+}
+
+# Same connection limits for both modes so only the thread model differs.
+run_mode platform --server.tomcat.max-connections=10000 --server.tomcat.accept-count=1000 \
+    --spring.datasource.hikari.maximum-pool-size=40
+run_mode virtual --spring.profiles.active=virtual
+
+echo ""
+echo "✅ Results written to $OUT"
+column -s, -t < "$OUT"
@@ -1,37 +1,58 @@
 package com.example.rental.config;
 
 import com.example.rental.repo.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.CachingUserDetailsService;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+
 @Configuration
 public class ApplicationConfig {
 
     private final UserRepository repository;
+    private final UserCache userCache;
 
-    public ApplicationConfig(UserRepository repository) {
+    public ApplicationConfig(
+            UserRepository repository,
+            @Value("${rental.security.principal-cache.max-size:10000}") long principalCacheSize,
+            @Value("${rental.security.principal-cache.ttl:5m}") Duration principalCacheTtl
+    ) {
         this.repository = repository;
+        this.userCache = new CaffeineUserCache(principalCacheSize, principalCacheTtl);
+    }
+
+    @Bean
+    public UserCache userCache() {
+        return userCache;
     }
 
     @Bean
     public UserDetailsService userDetailsService() {
-        return username -> repository.findByEmail(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        CachingUserDetailsService cachingService = new CachingUserDetailsService(
+                username -> repository.findByEmail(username)
+                        .orElseThrow(() -> new UsernameNotFoundException("User not found"))
+        );
+        cachingService.setUserCache(userCache);
+        return cachingService;
     }
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
@@ -41,7 +62,21 @@ public class ApplicationConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${rental.security.bcrypt.strength:10}") int strength,
+            @Value("${rental.security.bcrypt.threads:0}") int threads,
+            @Value("${rental.security.bcrypt.queue-capacity:64}") int queueCapacity,
+            @Value("${rental.security.bcrypt.timeout:5s}") Duration timeout,
+            MeterRegistry meterRegistry
+    ) {
+        // 0 threads means half the cores, leaving the rest for booking and search traffic.
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(strength),
+                poolSize,
+                queueCapacity,
+                timeout,
+                meterRegistry
+        );
     }
 }
@@ -1,10 +1,15 @@
 package com.example.rental.config;
 
 import com.example.rental.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,16 +20,28 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final boolean trustRoleClaim;
+    private final Timer validTokens;
+    private final Timer invalidTokens;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(
+            JwtService jwtService,
+            UserDetailsService userDetailsService,
+            @Value("${rental.security.jwt.trust-role-claim:false}") boolean trustRoleClaim,
+            MeterRegistry meterRegistry
+    ) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.trustRoleClaim = trustRoleClaim;
+        this.validTokens = Timer.builder("rental.auth.jwt.verify").tag("result", "valid").register(meterRegistry);
+        this.invalidTokens = Timer.builder("rental.auth.jwt.verify").tag("result", "invalid").register(meterRegistry);
     }
 
     @Override
@@ -43,12 +60,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
+        final Claims claims = verify(jwt);
+        if (claims == null) {
+            // Carry on anonymously: the rate limiter then counts it against the caller's IP and
+            // protected routes still refuse it.
+            filterChain.doFilter(request, response);
+            return;
+        }
+        userEmail = claims.getSubject();
 
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+            UserDetails userDetails = resolvePrincipal(claims, userEmail);
 
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (jwtService.isTokenValid(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -62,4 +86,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    // Verification time as rental.auth.jwt.verify{result}.
+    // Null when the token is malformed, tampered with or expired.
+    private Claims verify(String jwt) {
+        long start = System.nanoTime();
+        try {
+            Claims claims = jwtService.verify(jwt);
+            validTokens.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return claims;
+        } catch (JwtException | IllegalArgumentException ex) {
+            invalidTokens.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return null;
+        }
+    }
+
+    // With trust-role-claim the signed role claim is authoritative and no user lookup happens.
+    private UserDetails resolvePrincipal(Claims claims, String userEmail) {
+        String role = trustRoleClaim ? jwtService.extractRole(claims) : null;
+        if (role == null) {
+            return this.userDetailsService.loadUserByUsername(userEmail);
+        }
+        return org.springframework.security.core.userdetails.User.withUsername(userEmail)
+                .password("")
+                .authorities(role)
+                .build();
+    }
 }
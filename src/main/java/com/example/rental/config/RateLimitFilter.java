@@ -0,0 +1,167 @@
+package com.example.rental.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket rate limits per route group, keyed by the JWT subject when the
+ * request is signed in and by client IP otherwise. Each group allows
+ * {@code rental.rate-limit.<group>.capacity} requests in a burst, refilled evenly
+ * over {@code rental.rate-limit.<group>.period}. Requests over the limit get 429 with
+ * a {@code Retry-After} header and no body. Routes outside the groups are not limited.
+ * <p>
+ * Runs right after {@link JwtAuthenticationFilter} so the subject is known; a request
+ * whose token fails verification passes that filter unauthenticated and is limited
+ * by IP like any anonymous caller. Buckets
+ * live in a bounded cache and expire once idle for the longest period, when they
+ * would be full again anyway.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    enum RouteGroup {
+        AUTH, SEARCH, BOOKINGS;
+
+        static RouteGroup of(HttpServletRequest request) {
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            if (path.startsWith("/auth/")) {
+                return AUTH;
+            }
+            if (path.startsWith("/bookings")) {
+                return BOOKINGS;
+            }
+            if (HttpMethod.GET.matches(request.getMethod())
+                    && (path.equals("/properties/search") || (path.startsWith("/properties/") && path.endsWith("/quote")))) {
+                return SEARCH;
+            }
+            return null;
+        }
+    }
+
+    record Limit(long intervalNanos, long burstNanos) {
+        static Limit of(int capacity, Duration period) {
+            if (capacity < 1 || period.isNegative() || period.isZero()) {
+                throw new IllegalArgumentException(
+                        "Rate limit capacity and period must be positive, got " + capacity + " per " + period);
+            }
+            long periodNanos = period.toNanos();
+            return new Limit(periodNanos / capacity, periodNanos);
+        }
+    }
+
+    /**
+     * A token bucket kept as the time it will next be full (the GCRA form), so taking
+     * a token is one compare-and-set on a single long.
+     */
+    static final class TokenBucket {
+        private final AtomicLong fullAt;
+
+        TokenBucket(long now) {
+            this.fullAt = new AtomicLong(now);
+        }
+
+        // Zero when a token was taken, otherwise how long until one is available.
+        long tryAcquire(Limit limit, long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = (current - now > 0 ? current : now) + limit.intervalNanos();
+                long wait = next - now - limit.burstNanos();
+                if (wait > 0) {
+                    return wait;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<RouteGroup, Limit> limits = new EnumMap<>(RouteGroup.class);
+    private final Map<RouteGroup, Counter> throttled = new EnumMap<>(RouteGroup.class);
+    private final Cache<String, TokenBucket> buckets;
+
+    public RateLimitFilter(
+            @Value("${rental.rate-limit.enabled:true}") boolean enabled,
+            @Value("${rental.rate-limit.max-keys:100000}") long maxKeys,
+            @Value("${rental.rate-limit.auth.capacity:10}") int authCapacity,
+            @Value("${rental.rate-limit.auth.period:1m}") Duration authPeriod,
+            @Value("${rental.rate-limit.search.capacity:60}") int searchCapacity,
+            @Value("${rental.rate-limit.search.period:1m}") Duration searchPeriod,
+            @Value("${rental.rate-limit.bookings.capacity:30}") int bookingsCapacity,
+            @Value("${rental.rate-limit.bookings.period:1m}") Duration bookingsPeriod,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        limits.put(RouteGroup.AUTH, Limit.of(authCapacity, authPeriod));
+        limits.put(RouteGroup.SEARCH, Limit.of(searchCapacity, searchPeriod));
+        limits.put(RouteGroup.BOOKINGS, Limit.of(bookingsCapacity, bookingsPeriod));
+        long idleNanos = limits.values().stream().mapToLong(Limit::burstNanos).max().orElseThrow();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleNanos, TimeUnit.NANOSECONDS)
+                .build();
+        for (RouteGroup group : RouteGroup.values()) {
+            throttled.put(group, Counter.builder("rental.ratelimit.throttled")
+                    .tag("group", group.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || RouteGroup.of(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        RouteGroup group = RouteGroup.of(request);
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(group.name() + ':' + clientKey(request), key -> new TokenBucket(now));
+        long wait = bucket.tryAcquire(limits.get(group), now);
+        if (wait == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        throttled.get(group).increment();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999))));
+        response.setContentLength(0);
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
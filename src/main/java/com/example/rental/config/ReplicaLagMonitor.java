@@ -0,0 +1,118 @@
+package com.example.rental.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Owns the primary and replica connection pools behind {@link ReplicaRoutingDataSource}
+ * and measures how far each replica trails the primary.
+ * <p>
+ * Every {@code rental.datasource.replica.heartbeat-interval} the current time is
+ * written to {@code replica_heartbeat} on the primary and read back from each
+ * replica; the difference is that replica's lag, published as
+ * {@code rental.datasource.replica.lag}. A replica that is further behind than
+ * {@code rental.datasource.replica.max-lag}, or cannot be read, leaves the
+ * rotation until it catches up.
+ */
+public class ReplicaLagMonitor implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+    private static final long UNKNOWN = -1;
+
+    private final HikariDataSource primary;
+    private final Map<String, HikariDataSource> replicas;
+    private final Duration maxLag;
+    private final Map<String, AtomicLong> lagMillis = new ConcurrentHashMap<>();
+    private volatile List<String> inRotation = List.of();
+
+    public ReplicaLagMonitor(
+            HikariDataSource primary,
+            Map<String, HikariDataSource> replicas,
+            Duration maxLag,
+            MeterRegistry meterRegistry
+    ) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.maxLag = maxLag;
+        for (String name : this.replicas.keySet()) {
+            AtomicLong lag = lagMillis.computeIfAbsent(name, key -> new AtomicLong(UNKNOWN));
+            Gauge.builder("rental.datasource.replica.lag", lag, value -> value.get() < 0 ? Double.NaN : value.get() / 1000.0)
+                    .tag("replica", name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    public HikariDataSource primary() {
+        return primary;
+    }
+
+    public Map<String, HikariDataSource> replicas() {
+        return replicas;
+    }
+
+    /** Names of the replicas whose last measured lag was within the limit. */
+    public List<String> replicasInRotation() {
+        return inRotation;
+    }
+
+    @Scheduled(fixedDelayString = "${rental.datasource.replica.heartbeat-interval:1s}")
+    public void check() {
+        long now = System.currentTimeMillis();
+        try {
+            new JdbcTemplate(primary).update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1", now);
+        } catch (DataAccessException ex) {
+            // Without a fresh beat on the primary no lag can be measured, so nothing is trusted.
+            log.warn("Could not write the replica heartbeat to the primary: {}", ex.getMessage());
+            rotate(List.of());
+            return;
+        }
+
+        List<String> healthy = new ArrayList<>();
+        for (Map.Entry<String, HikariDataSource> replica : replicas.entrySet()) {
+            long lag = lagOf(replica.getKey(), replica.getValue());
+            lagMillis.get(replica.getKey()).set(lag);
+            if (lag != UNKNOWN && lag <= maxLag.toMillis()) {
+                healthy.add(replica.getKey());
+            }
+        }
+        rotate(healthy);
+    }
+
+    private long lagOf(String name, HikariDataSource replica) {
+        try {
+            Long beat = new JdbcTemplate(replica)
+                    .queryForObject("SELECT beat_millis FROM replica_heartbeat WHERE id = 1", Long.class);
+            return beat == null ? UNKNOWN : Math.max(0, System.currentTimeMillis() - beat);
+        } catch (DataAccessException ex) {
+            log.debug("Could not read the heartbeat from {}: {}", name, ex.getMessage());
+            return UNKNOWN;
+        }
+    }
+
+    private void rotate(List<String> healthy) {
+        if (!healthy.equals(inRotation)) {
+            log.info("Read replicas in rotation: {} of {}", healthy, replicas.keySet());
+        }
+        inRotation = List.copyOf(healthy);
+    }
+
+    @Override
+    public void close() {
+        replicas.values().forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
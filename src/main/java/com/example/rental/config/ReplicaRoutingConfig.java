@@ -0,0 +1,91 @@
+package com.example.rental.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the single Boot-managed pool with a primary pool plus one pool per
+ * {@code rental.datasource.replica.urls} entry, routed by
+ * {@link ReplicaRoutingDataSource}. Only the routing proxy is registered as a
+ * {@link DataSource} bean, so JPA, Flyway and SQL tracking all see one data
+ * source; the pools themselves are owned and closed by {@link ReplicaLagMonitor}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "rental.datasource.replica.urls")
+public class ReplicaRoutingConfig {
+    private static final String HIKARI_PREFIX = "spring.datasource.hikari";
+
+    @Bean(destroyMethod = "close")
+    public ReplicaLagMonitor replicaLagMonitor(
+            DataSourceProperties properties,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${rental.datasource.replica.urls}") List<String> urls,
+            @Value("${rental.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${rental.datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${rental.datasource.replica.max-lag:5s}") Duration maxLag
+    ) {
+        // Not beans, so Boot does not bind pool metrics for them.
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        configure(primary, "primary", environment, metrics);
+
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(urls.get(i).trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            configure(replica, "replica-" + i, environment, metrics);
+            replica.setReadOnly(true);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new ReplicaLagMonitor(primary, replicas, maxLag, meterRegistry);
+    }
+
+    @Bean
+    public DataSource dataSource(
+            ReplicaLagMonitor monitor,
+            MeterRegistry meterRegistry,
+            @Value("${rental.datasource.replica.max-lag:5s}") Duration maxLag,
+            @Value("${rental.datasource.replica.heartbeat-interval:1s}") Duration heartbeatInterval
+    ) {
+        // A replica in rotation was within max-lag at the last check and may slip for one more
+        // interval before the next, so a writer stays on the primary for that long.
+        ReplicaRoutingDataSource routing =
+                new ReplicaRoutingDataSource(monitor, maxLag.plus(heartbeatInterval), meterRegistry);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private static void configure(
+            HikariDataSource pool,
+            String name,
+            Environment environment,
+            MicrometerMetricsTrackerFactory metrics
+    ) {
+        Binder.get(environment).bind(HIKARI_PREFIX, Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(metrics);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.rental.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a replica in rotation and everything else,
+ * including work outside a transaction, to the primary.
+ * <p>
+ * A user who has just written is pinned to the primary for {@code stickiness}, so
+ * their next reads see their own booking or cancellation even while replicas
+ * catch up. The pin is taken when the write transaction gets its connection and
+ * renewed when it completes. Must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so the
+ * connection is picked after the transaction's read-only flag is set.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    static final String PRIMARY = "primary";
+    private static final int MAX_PINNED_USERS = 100_000;
+
+    private final ReplicaLagMonitor monitor;
+    private final Cache<String, Boolean> recentWriters;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter writes;
+    private final Counter pinned;
+    private final Counter lagging;
+    private final Counter replicaReads;
+
+    public ReplicaRoutingDataSource(ReplicaLagMonitor monitor, Duration stickiness, MeterRegistry meterRegistry) {
+        this.monitor = monitor;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickiness)
+                .maximumSize(MAX_PINNED_USERS)
+                .build();
+        Map<Object, Object> targets = new HashMap<>(monitor.replicas());
+        targets.put(PRIMARY, monitor.primary());
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(monitor.primary());
+        setLenientFallback(false);
+        this.writes = routed(meterRegistry, "write");
+        this.pinned = routed(meterRegistry, "pinned");
+        this.lagging = routed(meterRegistry, "lagging");
+        this.replicaReads = routed(meterRegistry, "replica");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                pin(user);
+            }
+            writes.increment();
+            return PRIMARY;
+        }
+        if (user != null && recentWriters.getIfPresent(user) != null) {
+            pinned.increment();
+            return PRIMARY;
+        }
+        List<String> replicas = monitor.replicasInRotation();
+        if (replicas.isEmpty()) {
+            lagging.increment();
+            return PRIMARY;
+        }
+        replicaReads.increment();
+        return replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+    }
+
+    private void pin(String user) {
+        recentWriters.put(user, Boolean.TRUE);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    recentWriters.put(user, Boolean.TRUE);
+                }
+            });
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private static Counter routed(MeterRegistry meterRegistry, String route) {
+        return Counter.builder("rental.datasource.routed").tag("route", route).register(meterRegistry);
+    }
+}
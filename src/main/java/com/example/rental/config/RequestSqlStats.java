@@ -0,0 +1,100 @@
+package com.example.rental.config;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC work done on behalf of one HTTP request: statement count, time spent in
+ * the driver, rows read and how often each statement shape ran. Bound to the
+ * request thread by {@link SqlTrackingFilter} and filled in by the datasource
+ * proxy from {@link SqlTrackingConfig}.
+ */
+final class RequestSqlStats {
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+    private static final int MAX_FINGERPRINTS = 64;
+    private static final int MAX_FINGERPRINT_LENGTH = 160;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+    private int statements;
+    private long dbNanos;
+    private long rows;
+    private SqlBudget budget;
+    private final Map<String, Integer> fingerprints = new LinkedHashMap<>();
+
+    static RequestSqlStats begin() {
+        RequestSqlStats stats = new RequestSqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static RequestSqlStats current() {
+        return CURRENT.get();
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    void recordStatement(String sql, long nanos) {
+        statements++;
+        dbNanos += nanos;
+        String fingerprint = fingerprint(sql);
+        if (fingerprints.containsKey(fingerprint) || fingerprints.size() < MAX_FINGERPRINTS) {
+            fingerprints.merge(fingerprint, 1, Integer::sum);
+        }
+    }
+
+    void recordRow() {
+        rows++;
+    }
+
+    int getStatements() {
+        return statements;
+    }
+
+    long getDbNanos() {
+        return dbNanos;
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    SqlBudget getBudget() {
+        return budget;
+    }
+
+    void setBudget(SqlBudget budget) {
+        this.budget = budget;
+    }
+
+    boolean isOverBudget() {
+        return budget != null && statements > budget.value();
+    }
+
+    /** The most frequent statement shapes, e.g. {@code 12x select ... where b.id=?}. */
+    String topStatements(int limit) {
+        return fingerprints.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(entry -> entry.getValue() + "x " + entry.getKey())
+                .collect(Collectors.joining(" | "));
+    }
+
+    // Literals become ?, bind lists collapse to (?...), so the same query with different values groups together.
+    static String fingerprint(String sql) {
+        String normalized = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("(?...)");
+        return normalized.length() > MAX_FINGERPRINT_LENGTH
+                ? normalized.substring(0, MAX_FINGERPRINT_LENGTH) + "..."
+                : normalized;
+    }
+}
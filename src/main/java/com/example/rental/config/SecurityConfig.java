@@ -1,5 +1,7 @@
 package com.example.rental.config;
 
+import jakarta.servlet.DispatcherType;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -15,10 +17,16 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final AuthenticationProvider authenticationProvider;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter, AuthenticationProvider authenticationProvider) {
+    public SecurityConfig(
+            JwtAuthenticationFilter jwtAuthFilter,
+            RateLimitFilter rateLimitFilter,
+            AuthenticationProvider authenticationProvider
+    ) {
         this.jwtAuthFilter = jwtAuthFilter;
+        this.rateLimitFilter = rateLimitFilter;
         this.authenticationProvider = authenticationProvider;
     }
 
@@ -27,6 +35,8 @@ public class SecurityConfig {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
+                // Async dispatches (streamed exports) were already authorized on the original request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/auth/**").permitAll() // Open for login/register
                 .requestMatchers("/properties/admin/**").hasRole("ADMIN")
                 .requestMatchers("/bookings/admin/**").hasRole("ADMIN")
@@ -36,18 +46,26 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.POST, "/properties").hasAnyRole("ADMIN", "HOST")
                 .requestMatchers(HttpMethod.POST, "/properties/*/approve").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.POST, "/properties/*/reject").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.PUT, "/properties/*/pricing-rules").hasAnyRole("HOST", "ADMIN")
                 .requestMatchers(HttpMethod.POST, "/bookings").authenticated()
+                .requestMatchers(HttpMethod.POST, "/bookings/batch").authenticated()
                 .requestMatchers(HttpMethod.GET, "/bookings/my").authenticated()
                 .requestMatchers(HttpMethod.POST, "/bookings/*/confirm").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.POST, "/bookings/*/cancel").authenticated()
                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**").permitAll() // Open for Swagger
+                .requestMatchers(EndpointRequest.to("health")).permitAll()
+                // Scraped by Prometheus without a user token. Actuator only listens on
+                // management.server.port, so this does not open it on the API port.
+                .requestMatchers(EndpointRequest.to("prometheus")).permitAll()
                 .anyRequest().authenticated() // All other requests need token
             )
             .sessionManagement(session -> session
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
             .authenticationProvider(authenticationProvider)
-            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            // After the JWT filter so signed-in callers are limited by subject rather than IP
+            .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
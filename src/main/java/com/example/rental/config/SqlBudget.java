@@ -0,0 +1,20 @@
+package com.example.rental.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The most JDBC statements one call of the annotated handler is expected to run,
+ * including lookups made by the security filters. {@link SqlTrackingFilter} logs
+ * requests that go over, and fails them when
+ * {@code rental.sql.budget.fail-on-exceed} is set (as the tests do).
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+    int value();
+}
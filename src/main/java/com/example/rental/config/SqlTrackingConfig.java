@@ -0,0 +1,114 @@
+package com.example.rental.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.lang.NonNull;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Wraps the application {@link DataSource} in a datasource-proxy that reports
+ * every statement to the {@link RequestSqlStats} of the current request, and
+ * exposes each handler's {@link SqlBudget} to {@link SqlTrackingFilter}.
+ * <p>
+ * Off unless {@code rental.sql.tracking.enabled=true}. Counting rows as well
+ * ({@code rental.sql.tracking.rows=true}) proxies every result set and routes each
+ * JDBC call on it through a listener, so it is for local runs and tests only.
+ */
+@Configuration
+@ConditionalOnProperty(name = "rental.sql.tracking.enabled", havingValue = "true")
+public class SqlTrackingConfig implements WebMvcConfigurer {
+    private static final String STARTED_AT = "rental.startedAt";
+
+    @Bean
+    public static BeanPostProcessor sqlTrackingDataSourcePostProcessor(Environment environment) {
+        boolean countRows = environment.getProperty("rental.sql.tracking.rows", Boolean.class, false);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(beanName, dataSource)
+                            .listener(new StatementListener());
+                    if (countRows) {
+                        builder.proxyResultSet().methodListener(new RowListener());
+                    }
+                    return builder.build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(
+                    @NonNull HttpServletRequest request,
+                    @NonNull HttpServletResponse response,
+                    @NonNull Object handler
+            ) {
+                RequestSqlStats stats = RequestSqlStats.current();
+                if (stats != null && handler instanceof HandlerMethod method) {
+                    stats.setBudget(method.getMethodAnnotation(SqlBudget.class));
+                }
+                return true;
+            }
+        });
+    }
+
+    private static final class StatementListener implements QueryExecutionListener {
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            if (RequestSqlStats.current() != null) {
+                execInfo.addCustomValue(STARTED_AT, System.nanoTime());
+            }
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            RequestSqlStats stats = RequestSqlStats.current();
+            Long startedAt = execInfo.getCustomValue(STARTED_AT, Long.class);
+            if (stats != null && startedAt != null && !queryInfoList.isEmpty()) {
+                // A JDBC batch is one round trip, so it counts once.
+                stats.recordStatement(queryInfoList.get(0).getQuery(), System.nanoTime() - startedAt);
+            }
+        }
+    }
+
+    private static final class RowListener implements MethodExecutionListener {
+        @Override
+        public void beforeMethod(MethodExecutionContext executionContext) {
+        }
+
+        @Override
+        public void afterMethod(MethodExecutionContext executionContext) {
+            if (executionContext.getTarget() instanceof ResultSet
+                    && "next".equals(executionContext.getMethod().getName())
+                    && Boolean.TRUE.equals(executionContext.getResult())) {
+                RequestSqlStats stats = RequestSqlStats.current();
+                if (stats != null) {
+                    stats.recordRow();
+                }
+            }
+        }
+    }
+}
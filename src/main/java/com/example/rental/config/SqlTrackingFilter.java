@@ -0,0 +1,132 @@
+package com.example.rental.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Tracks the SQL each request runs. Adds a {@code Server-Timing: db} header with
+ * the statement count, rows read and time spent in the database, logs requests
+ * slower than {@code rental.sql.slow-request-threshold} with their most frequent
+ * statement shapes, and logs handlers that go over their {@link SqlBudget}. The
+ * stats stay on the request as {@link #STATS_ATTRIBUTE}, so tests can assert the
+ * budget once the response is complete.
+ * <p>
+ * Runs ahead of Spring Security so principal lookups count towards the request.
+ * Off unless {@code rental.sql.tracking.enabled=true}; meant for local runs and tests.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "rental.sql.tracking.enabled", havingValue = "true")
+public class SqlTrackingFilter extends OncePerRequestFilter {
+    static final String STATS_ATTRIBUTE = RequestSqlStats.class.getName();
+    private static final Logger log = LoggerFactory.getLogger(SqlTrackingFilter.class);
+    private static final int LOGGED_STATEMENTS = 5;
+
+    private final Duration slowRequestThreshold;
+    private final boolean countRows;
+
+    public SqlTrackingFilter(
+            @Value("${rental.sql.slow-request-threshold:500ms}") Duration slowRequestThreshold,
+            @Value("${rental.sql.tracking.rows:false}") boolean countRows
+    ) {
+        this.slowRequestThreshold = slowRequestThreshold;
+        this.countRows = countRows;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        RequestSqlStats stats = RequestSqlStats.begin();
+        request.setAttribute(STATS_ATTRIBUTE, stats);
+        long start = System.nanoTime();
+        ServerTimingResponse timedResponse = new ServerTimingResponse(response, stats, countRows);
+        try {
+            filterChain.doFilter(request, timedResponse);
+        } finally {
+            RequestSqlStats.end();
+            timedResponse.addServerTiming();
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        String route = request.getMethod() + " " + route(request);
+        if (elapsedNanos >= slowRequestThreshold.toNanos()) {
+            log.warn("Slow request {} took {} ms: {}; top statements: {}",
+                    route, elapsedNanos / 1_000_000, summary(stats), stats.topStatements(LOGGED_STATEMENTS));
+        }
+        if (stats.isOverBudget()) {
+            log.warn("SQL budget exceeded: {}", overBudgetMessage(route, stats));
+        }
+    }
+
+    static String overBudgetMessage(String route, RequestSqlStats stats) {
+        return String.format(Locale.ROOT, "%s ran %d statements, budget is %d; top statements: %s",
+                route, stats.getStatements(), stats.getBudget().value(), stats.topStatements(LOGGED_STATEMENTS));
+    }
+
+    // The mapped pattern (e.g. /properties/{id}) once a handler matched, so log lines group by endpoint.
+    private static String route(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : request.getRequestURI();
+    }
+
+    private String summary(RequestSqlStats stats) {
+        return String.format(Locale.ROOT, "%s, %.1f ms in db", counts(stats, countRows), stats.getDbNanos() / 1_000_000.0);
+    }
+
+    // Rows are only reported when rental.sql.tracking.rows counts them.
+    private static String counts(RequestSqlStats stats, boolean countRows) {
+        return countRows
+                ? String.format(Locale.ROOT, "%d statements, %d rows", stats.getStatements(), stats.getRows())
+                : stats.getStatements() + " statements";
+    }
+
+    /**
+     * Adds the header just before the response commits, which is the last point
+     * headers can change; for most handlers all queries have run by then.
+     */
+    private static final class ServerTimingResponse extends OnCommittedResponseWrapper {
+        private final RequestSqlStats stats;
+        private final boolean countRows;
+        private boolean added;
+
+        private ServerTimingResponse(HttpServletResponse response, RequestSqlStats stats, boolean countRows) {
+            super(response);
+            this.stats = stats;
+            this.countRows = countRows;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            addServerTiming();
+        }
+
+        void addServerTiming() {
+            if (added || isCommitted()) {
+                return;
+            }
+            added = true;
+            addHeader("Server-Timing", String.format(Locale.ROOT, "db;dur=%.1f;desc=\"%s\"",
+                    stats.getDbNanos() / 1_000_000.0, counts(stats, countRows)));
+        }
+    }
+}
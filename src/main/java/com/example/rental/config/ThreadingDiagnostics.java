@@ -0,0 +1,35 @@
+package com.example.rental.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs which thread model serves requests, and warns when the {@code virtual}
+ * profile is requested on a JDK that cannot honour it.
+ */
+@Component
+public class ThreadingDiagnostics {
+    private static final Logger log = LoggerFactory.getLogger(ThreadingDiagnostics.class);
+
+    private final Environment environment;
+
+    public ThreadingDiagnostics(Environment environment) {
+        this.environment = environment;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        boolean requested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Requests and async work run on virtual threads (JDK {})", Runtime.version().feature());
+        } else if (requested) {
+            log.warn("spring.threads.virtual.enabled is set but JDK {} has no virtual threads; using platform threads",
+                    Runtime.version().feature());
+        }
+    }
+}
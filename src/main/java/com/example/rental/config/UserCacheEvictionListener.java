@@ -0,0 +1,30 @@
+package com.example.rental.config;
+
+import com.example.rental.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops a user from the principal cache whenever the row is written, so role or
+ * password changes are picked up on the next request.
+ */
+@Component
+public class UserCacheEvictionListener {
+    // Resolved lazily: Hibernate creates entity listeners while the EntityManagerFactory is being built.
+    private final ObjectProvider<UserCache> userCache;
+
+    public UserCacheEvictionListener(ObjectProvider<UserCache> userCache) {
+        this.userCache = userCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void evict(User user) {
+        userCache.ifAvailable(cache -> cache.removeUserFromCache(user.getEmail()));
+    }
+}
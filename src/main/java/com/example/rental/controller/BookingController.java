@@ -1,13 +1,17 @@
 package com.example.rental.controller;
 
+import com.example.rental.config.SqlBudget;
+import com.example.rental.dto.BookingBatchResponse;
 import com.example.rental.dto.BookingRequest;
 import com.example.rental.dto.BookingResponse;
 import com.example.rental.service.BookingService;
+import com.example.rental.service.ExportFormat;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -21,37 +25,94 @@ public class BookingController {
         this.bookingService = bookingService;
     }
 
+    // With an Idempotency-Key, a retry gets the first booking back instead of a duplicate or a 409.
     @PostMapping
+    @SqlBudget(12)
     @Operation(summary = "Create booking request")
     public ResponseEntity<BookingResponse> createBooking(
             @RequestBody BookingRequest request,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
             Authentication authentication
     ) {
-        return ResponseEntity.ok(bookingService.createBooking(request, authentication.getName()));
+        return ResponseEntity.ok(bookingService.createBooking(request, authentication.getName(), idempotencyKey));
     }
 
+    @PostMapping("/batch")
+    @SqlBudget(12)
+    @Operation(
+            summary = "Create booking requests in bulk",
+            description = "Each item is accepted or rejected on its own; results keep the order of the request list"
+    )
+    public ResponseEntity<BookingBatchResponse> createBookings(
+            @RequestBody List<BookingRequest> requests,
+            Authentication authentication
+    ) {
+        return ResponseEntity.ok(bookingService.createBookings(requests, authentication.getName()));
+    }
+
+    // paging=cursor returns newest-first windows of `size` rows; without it the full list is returned.
     @GetMapping("/my")
-    public ResponseEntity<List<BookingResponse>> myBookings(Authentication authentication) {
+    @SqlBudget(3)
+    public ResponseEntity<?> myBookings(
+            Authentication authentication,
+            @RequestParam(required = false) String paging,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        if ("cursor".equalsIgnoreCase(paging)) {
+            return ResponseEntity.ok(bookingService.getMyBookingsWindow(authentication.getName(), cursor, size));
+        }
         return ResponseEntity.ok(bookingService.getMyBookings(authentication.getName()));
     }
 
     @GetMapping("/host/my")
-    public ResponseEntity<List<BookingResponse>> hostBookings(Authentication authentication) {
+    @SqlBudget(3)
+    public ResponseEntity<?> hostBookings(
+            Authentication authentication,
+            @RequestParam(required = false) String paging,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        if ("cursor".equalsIgnoreCase(paging)) {
+            return ResponseEntity.ok(bookingService.getHostBookingsWindow(authentication.getName(), cursor, size));
+        }
         return ResponseEntity.ok(bookingService.getHostBookings(authentication.getName()));
     }
 
     @GetMapping("/admin/all")
-    public ResponseEntity<List<BookingResponse>> allBookingsForAdmin() {
+    @SqlBudget(3)
+    public ResponseEntity<?> allBookingsForAdmin(
+            @RequestParam(required = false) String paging,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        if ("cursor".equalsIgnoreCase(paging)) {
+            return ResponseEntity.ok(bookingService.getAllBookingsForAdminWindow(cursor, size));
+        }
         return ResponseEntity.ok(bookingService.getAllBookingsForAdmin());
     }
 
+    @GetMapping("/admin/all/stream")
+    @SqlBudget(2)
+    @Operation(summary = "Stream all bookings (admin)", description = "format=ndjson (default) or json array")
+    public ResponseEntity<StreamingResponseBody> streamAllBookingsForAdmin(
+            @RequestParam(defaultValue = "ndjson") String format
+    ) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .body(out -> bookingService.exportAllBookingsForAdmin(exportFormat, out));
+    }
+
     @PostMapping("/{bookingId}/confirm")
+    @SqlBudget(7)
     @Operation(summary = "Confirm booking (admin)")
     public ResponseEntity<BookingResponse> confirm(@PathVariable Long bookingId) {
         return ResponseEntity.ok(bookingService.confirmBooking(bookingId));
     }
 
     @PostMapping("/{bookingId}/cancel")
+    @SqlBudget(7)
     public ResponseEntity<BookingResponse> cancel(Authentication authentication, @PathVariable Long bookingId) {
         boolean isAdmin = authentication.getAuthorities().stream()
                 .anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
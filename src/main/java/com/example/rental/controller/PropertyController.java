@@ -1,14 +1,32 @@
 package com.example.rental.controller;
 
-import com.example.rental.dto.PagedResponse;
+import com.example.rental.config.SqlBudget;
+import com.example.rental.dto.ModerationSummary;
+import com.example.rental.dto.PriceQuoteResponse;
+import com.example.rental.dto.PricingRuleRequest;
+import com.example.rental.dto.PricingRuleResponse;
+import com.example.rental.dto.PropertyCalendarResponse;
+import com.example.rental.dto.PropertyModerationRequest;
+import com.example.rental.dto.PropertyResponse;
 import com.example.rental.model.Property;
+import com.example.rental.service.BookingService;
+import com.example.rental.service.ExportFormat;
+import com.example.rental.service.PricingEngine;
+import com.example.rental.service.PropertyListingsCache;
 import com.example.rental.service.PropertyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 import org.springframework.lang.NonNull;
 
@@ -17,63 +35,186 @@ import org.springframework.lang.NonNull;
 @Tag(name = "Properties", description = "Property listing and moderation APIs")
 public class PropertyController {
     private final PropertyService service;
-    public PropertyController(PropertyService service) { this.service = service; }
+    private final BookingService bookingService;
+    private final PricingEngine pricing;
+    public PropertyController(PropertyService service, BookingService bookingService, PricingEngine pricing) {
+        this.service = service;
+        this.bookingService = bookingService;
+        this.pricing = pricing;
+    }
 
     @PostMapping
-    public ResponseEntity<Property> add(@RequestBody @NonNull Property p, Authentication authentication){
+    @SqlBudget(4)
+    public ResponseEntity<PropertyResponse> add(@RequestBody @NonNull Property p, Authentication authentication){
         return ResponseEntity.ok(service.add(p, authentication.getName()));
     }
 
-    @GetMapping
-    @Operation(summary = "Get approved properties")
-    public ResponseEntity<List<Property>> all(){ return ResponseEntity.ok(service.allApproved()); }
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @SqlBudget(2)
+    @Operation(summary = "Get approved properties", description = "Cached; supports If-None-Match")
+    public ResponseEntity<byte[]> all(WebRequest request){ return cached(service.approvedListing(), request); }
 
     @GetMapping("/admin/all")
-    public ResponseEntity<List<Property>> allForAdmin(){ return ResponseEntity.ok(service.allForAdmin()); }
+    @SqlBudget(3)
+    public ResponseEntity<List<PropertyResponse>> allForAdmin(){ return ResponseEntity.ok(service.allForAdmin()); }
+
+    @GetMapping("/admin/all/stream")
+    @SqlBudget(2)
+    @Operation(summary = "Stream all properties (admin)", description = "format=ndjson (default) or json array")
+    public ResponseEntity<StreamingResponseBody> streamAllForAdmin(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .body(out -> service.exportAllForAdmin(exportFormat, out));
+    }
 
     @GetMapping("/admin/pending")
-    public ResponseEntity<List<Property>> pendingForAdmin(){ return ResponseEntity.ok(service.pendingForAdmin()); }
+    @SqlBudget(3)
+    public ResponseEntity<List<PropertyResponse>> pendingForAdmin(){ return ResponseEntity.ok(service.pendingForAdmin()); }
 
-    @GetMapping("/available")
-    public ResponseEntity<List<Property>> available(){ return ResponseEntity.ok(service.available()); }
+    @GetMapping(value = "/available", produces = MediaType.APPLICATION_JSON_VALUE)
+    @SqlBudget(2)
+    @Operation(summary = "Get approved properties that are available", description = "Cached; supports If-None-Match")
+    public ResponseEntity<byte[]> available(WebRequest request){ return cached(service.availableListing(), request); }
 
     @GetMapping("/search")
-    @Operation(summary = "Search properties with filters and pagination")
-    public ResponseEntity<PagedResponse<Property>> search(
+    @SqlBudget(4)
+    @Operation(
+            summary = "Search properties with filters and pagination",
+            description = "paging=offset (default) returns page totals; paging=cursor seeks past the given cursor without counting"
+    )
+    public ResponseEntity<?> search(
             @RequestParam(required = false) String query,
             @RequestParam(required = false) Double minPrice,
             @RequestParam(required = false) Double maxPrice,
             @RequestParam(required = false) Boolean available,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOut,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "6") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "offset") String paging,
+            @RequestParam(required = false) String cursor
     ) {
+        if ("cursor".equalsIgnoreCase(paging)) {
+            return ResponseEntity.ok(
+                    service.searchApprovedWindow(
+                            query, minPrice, maxPrice, available, checkIn, checkOut, cursor, size, sortBy, sortDir)
+            );
+        }
         return ResponseEntity.ok(
-                service.searchApproved(query, minPrice, maxPrice, available, page, size, sortBy, sortDir)
+                service.searchApproved(
+                        query, minPrice, maxPrice, available, checkIn, checkOut, page, size, sortBy, sortDir)
         );
     }
 
     @GetMapping("/host/my")
-    public ResponseEntity<List<Property>> hostListings(Authentication authentication) {
+    @SqlBudget(3)
+    public ResponseEntity<List<PropertyResponse>> hostListings(Authentication authentication) {
         return ResponseEntity.ok(service.listingsByHost(authentication.getName()));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Property> getById(@PathVariable @NonNull Long id){
+    @SqlBudget(2)
+    public ResponseEntity<PropertyResponse> getById(@PathVariable @NonNull Long id){
         return service.findById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/calendar")
+    @SqlBudget(3)
+    @Operation(
+            summary = "Booked nights of a property",
+            description = "Run-length encoded over [from, to), one month from today by default; supports If-None-Match"
+    )
+    public ResponseEntity<PropertyCalendarResponse> calendar(
+            @PathVariable @NonNull Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request
+    ) {
+        BookingService.OccupancyCalendar calendar = bookingService.propertyCalendar(id, from, to);
+        if (request.checkNotModified(calendar.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(calendar.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(calendar.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(calendar.body());
+    }
+
+    @GetMapping("/{id}/quote")
+    @SqlBudget(2)
+    @Operation(
+            summary = "Price a stay",
+            description = "Total for [checkIn, checkOut) after the property's pricing rules; what a booking would be charged"
+    )
+    public ResponseEntity<PriceQuoteResponse> quote(
+            @PathVariable @NonNull Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkIn,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOut
+    ) {
+        return ResponseEntity.ok(pricing.quote(id, checkIn, checkOut));
+    }
+
+    @GetMapping("/{id}/pricing-rules")
+    @SqlBudget(2)
+    public ResponseEntity<List<PricingRuleResponse>> pricingRules(@PathVariable @NonNull Long id) {
+        return ResponseEntity.ok(pricing.rules(id));
+    }
+
+    @PutMapping("/{id}/pricing-rules")
+    @SqlBudget(7)
+    @Operation(summary = "Replace pricing rules (owning host or admin)")
+    public ResponseEntity<List<PricingRuleResponse>> replacePricingRules(
+            @PathVariable @NonNull Long id,
+            @RequestBody List<PricingRuleRequest> rules,
+            Authentication authentication
+    ) {
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+        return ResponseEntity.ok(pricing.replaceRules(id, rules, authentication.getName(), isAdmin));
+    }
+
     @PostMapping("/{id}/approve")
-    public ResponseEntity<Property> approve(@PathVariable @NonNull Long id){
+    @SqlBudget(4)
+    public ResponseEntity<PropertyResponse> approve(@PathVariable @NonNull Long id){
         return ResponseEntity.ok(service.approve(id));
     }
 
     @PostMapping("/{id}/reject")
-    public ResponseEntity<Property> reject(@PathVariable @NonNull Long id){
+    @SqlBudget(4)
+    public ResponseEntity<PropertyResponse> reject(@PathVariable @NonNull Long id){
         return ResponseEntity.ok(service.reject(id));
     }
+
+    @PostMapping("/admin/moderate")
+    @SqlBudget(32) // up to ten chunks of MODERATION_CHUNK ids
+    @Operation(
+            summary = "Approve or reject properties in bulk (admin)",
+            description = "Applies the decision to the given ids, or to all pending properties (optionally of one host)"
+    )
+    public ResponseEntity<ModerationSummary> moderate(@RequestBody PropertyModerationRequest request) {
+        return ResponseEntity.ok(service.moderate(request));
+    }
+
+    // Clients revalidate every time; a matching If-None-Match gets an empty 304.
+    private static ResponseEntity<byte[]> cached(PropertyListingsCache.Snapshot snapshot, WebRequest request) {
+        if (request.checkNotModified(snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(snapshot.body());
+    }
 }
 
@@ -0,0 +1,25 @@
+package com.example.rental.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A run of consecutive booked nights. {@code to} is exclusive, like a check-out
+ * date, so the night before {@code to} is the last one booked.
+ */
+public class BookedRange {
+    private LocalDate from;
+    private LocalDate to;
+
+    public BookedRange() {}
+
+    public BookedRange(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public LocalDate getFrom() { return from; }
+    public void setFrom(LocalDate from) { this.from = from; }
+
+    public LocalDate getTo() { return to; }
+    public void setTo(LocalDate to) { this.to = to; }
+}
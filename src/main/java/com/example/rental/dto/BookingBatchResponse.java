@@ -0,0 +1,27 @@
+package com.example.rental.dto;
+
+import java.util.List;
+
+public class BookingBatchResponse {
+    private int acceptedCount;
+    private int rejectedCount;
+    private List<BookingBatchResult> results;
+
+    public static BookingBatchResponse of(List<BookingBatchResult> results) {
+        BookingBatchResponse response = new BookingBatchResponse();
+        int accepted = (int) results.stream().filter(BookingBatchResult::isAccepted).count();
+        response.setAcceptedCount(accepted);
+        response.setRejectedCount(results.size() - accepted);
+        response.setResults(results);
+        return response;
+    }
+
+    public int getAcceptedCount() { return acceptedCount; }
+    public void setAcceptedCount(int acceptedCount) { this.acceptedCount = acceptedCount; }
+
+    public int getRejectedCount() { return rejectedCount; }
+    public void setRejectedCount(int rejectedCount) { this.rejectedCount = rejectedCount; }
+
+    public List<BookingBatchResult> getResults() { return results; }
+    public void setResults(List<BookingBatchResult> results) { this.results = results; }
+}
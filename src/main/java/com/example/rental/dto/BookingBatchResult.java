@@ -0,0 +1,39 @@
+package com.example.rental.dto;
+
+/**
+ * Outcome of one request in a booking batch, in the same position as the request.
+ * Exactly one of {@code booking} and {@code error} is set.
+ */
+public class BookingBatchResult {
+    private int index;
+    private boolean accepted;
+    private BookingResponse booking;
+    private String error;
+
+    public static BookingBatchResult accepted(int index, BookingResponse booking) {
+        BookingBatchResult result = new BookingBatchResult();
+        result.setIndex(index);
+        result.setAccepted(true);
+        result.setBooking(booking);
+        return result;
+    }
+
+    public static BookingBatchResult rejected(int index, String error) {
+        BookingBatchResult result = new BookingBatchResult();
+        result.setIndex(index);
+        result.setError(error);
+        return result;
+    }
+
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public boolean isAccepted() { return accepted; }
+    public void setAccepted(boolean accepted) { this.accepted = accepted; }
+
+    public BookingResponse getBooking() { return booking; }
+    public void setBooking(BookingResponse booking) { this.booking = booking; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -1,5 +1,7 @@
 package com.example.rental.dto;
 
+import com.example.rental.model.Booking.BookingStatus;
+
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
@@ -15,6 +17,33 @@ public class BookingResponse {
     private String status;
     private LocalDateTime createdAt;
 
+    public BookingResponse() {}
+
+    // Used by JPQL constructor expressions in BookingRepository.
+    public BookingResponse(
+            Long id,
+            Long propertyId,
+            String propertyName,
+            String propertyLocation,
+            String userEmail,
+            LocalDate checkInDate,
+            LocalDate checkOutDate,
+            Double totalAmount,
+            BookingStatus status,
+            LocalDateTime createdAt
+    ) {
+        this.id = id;
+        this.propertyId = propertyId;
+        this.propertyName = propertyName;
+        this.propertyLocation = propertyLocation;
+        this.userEmail = userEmail;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+        this.totalAmount = totalAmount;
+        this.status = status == null ? null : status.name();
+        this.createdAt = createdAt;
+    }
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
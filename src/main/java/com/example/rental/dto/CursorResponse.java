@@ -0,0 +1,42 @@
+package com.example.rental.dto;
+
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One window of a keyset-paginated listing. Unlike {@link PagedResponse} it carries
+ * no totals, so producing it never needs a COUNT query; clients pass
+ * {@code nextCursor} back to fetch the following window.
+ */
+public class CursorResponse<T> {
+    private List<T> items;
+    private int size;
+    private String nextCursor;
+    private boolean hasNext;
+
+    public static <T> CursorResponse<T> from(Slice<T> result, Function<T, String> cursorOf) {
+        CursorResponse<T> response = new CursorResponse<>();
+        List<T> items = result.getContent();
+        response.setItems(items);
+        response.setSize(result.getSize());
+        response.setHasNext(result.hasNext());
+        response.setNextCursor(result.hasNext() && !items.isEmpty()
+                ? cursorOf.apply(items.get(items.size() - 1))
+                : null);
+        return response;
+    }
+
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+}
@@ -0,0 +1,31 @@
+package com.example.rental.dto;
+
+import com.example.rental.model.Property.ApprovalStatus;
+
+public class ModerationSummary {
+    private ApprovalStatus decision;
+    private int matched;
+    private int updated;
+    private int skipped;
+
+    public ModerationSummary() {}
+
+    public ModerationSummary(ApprovalStatus decision, int matched, int updated) {
+        this.decision = decision;
+        this.matched = matched;
+        this.updated = updated;
+        this.skipped = matched - updated;
+    }
+
+    public ApprovalStatus getDecision() { return decision; }
+    public void setDecision(ApprovalStatus decision) { this.decision = decision; }
+
+    public int getMatched() { return matched; }
+    public void setMatched(int matched) { this.matched = matched; }
+
+    public int getUpdated() { return updated; }
+    public void setUpdated(int updated) { this.updated = updated; }
+
+    public int getSkipped() { return skipped; }
+    public void setSkipped(int skipped) { this.skipped = skipped; }
+}
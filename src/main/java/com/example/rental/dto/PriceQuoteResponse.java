@@ -0,0 +1,52 @@
+package com.example.rental.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Price of a stay: {@code subtotal} is the sum of the nightly rates after seasonal,
+ * weekend and occupancy rules, and {@code totalAmount} applies the length-of-stay
+ * multiplier to it. This is what a booking for the same dates would be charged.
+ */
+public class PriceQuoteResponse {
+    private Long propertyId;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+    private long nights;
+    private double subtotal;
+    private double lengthOfStayMultiplier;
+    private double totalAmount;
+
+    public PriceQuoteResponse() {}
+
+    public PriceQuoteResponse(Long propertyId, LocalDate checkIn, LocalDate checkOut, long nights,
+                              double subtotal, double lengthOfStayMultiplier, double totalAmount) {
+        this.propertyId = propertyId;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.nights = nights;
+        this.subtotal = subtotal;
+        this.lengthOfStayMultiplier = lengthOfStayMultiplier;
+        this.totalAmount = totalAmount;
+    }
+
+    public Long getPropertyId() { return propertyId; }
+    public void setPropertyId(Long propertyId) { this.propertyId = propertyId; }
+
+    public LocalDate getCheckIn() { return checkIn; }
+    public void setCheckIn(LocalDate checkIn) { this.checkIn = checkIn; }
+
+    public LocalDate getCheckOut() { return checkOut; }
+    public void setCheckOut(LocalDate checkOut) { this.checkOut = checkOut; }
+
+    public long getNights() { return nights; }
+    public void setNights(long nights) { this.nights = nights; }
+
+    public double getSubtotal() { return subtotal; }
+    public void setSubtotal(double subtotal) { this.subtotal = subtotal; }
+
+    public double getLengthOfStayMultiplier() { return lengthOfStayMultiplier; }
+    public void setLengthOfStayMultiplier(double lengthOfStayMultiplier) { this.lengthOfStayMultiplier = lengthOfStayMultiplier; }
+
+    public double getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(double totalAmount) { this.totalAmount = totalAmount; }
+}
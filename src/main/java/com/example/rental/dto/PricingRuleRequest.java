@@ -0,0 +1,36 @@
+package com.example.rental.dto;
+
+import com.example.rental.model.PricingRule;
+
+import java.time.LocalDate;
+
+/**
+ * One rule in a {@code PUT /properties/{id}/pricing-rules} body. Only the fields its
+ * type uses are read, see {@link PricingRule}.
+ */
+public class PricingRuleRequest {
+    private PricingRule.Type type;
+    private Double multiplier;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Integer minNights;
+    private Double threshold;
+
+    public PricingRule.Type getType() { return type; }
+    public void setType(PricingRule.Type type) { this.type = type; }
+
+    public Double getMultiplier() { return multiplier; }
+    public void setMultiplier(Double multiplier) { this.multiplier = multiplier; }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+    public Integer getMinNights() { return minNights; }
+    public void setMinNights(Integer minNights) { this.minNights = minNights; }
+
+    public Double getThreshold() { return threshold; }
+    public void setThreshold(Double threshold) { this.threshold = threshold; }
+}
@@ -0,0 +1,50 @@
+package com.example.rental.dto;
+
+import com.example.rental.model.PricingRule;
+
+import java.time.LocalDate;
+
+public class PricingRuleResponse {
+    private Long id;
+    private PricingRule.Type type;
+    private double multiplier;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Integer minNights;
+    private Double threshold;
+
+    public PricingRuleResponse() {}
+
+    public static PricingRuleResponse from(PricingRule rule) {
+        PricingRuleResponse response = new PricingRuleResponse();
+        response.id = rule.getId();
+        response.type = rule.getType();
+        response.multiplier = rule.getMultiplier();
+        response.startDate = rule.getStartDate();
+        response.endDate = rule.getEndDate();
+        response.minNights = rule.getMinNights();
+        response.threshold = rule.getThreshold();
+        return response;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public PricingRule.Type getType() { return type; }
+    public void setType(PricingRule.Type type) { this.type = type; }
+
+    public double getMultiplier() { return multiplier; }
+    public void setMultiplier(double multiplier) { this.multiplier = multiplier; }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+    public Integer getMinNights() { return minNights; }
+    public void setMinNights(Integer minNights) { this.minNights = minNights; }
+
+    public Double getThreshold() { return threshold; }
+    public void setThreshold(Double threshold) { this.threshold = threshold; }
+}
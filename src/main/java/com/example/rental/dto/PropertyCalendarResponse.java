@@ -0,0 +1,36 @@
+package com.example.rental.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Occupancy of one property over [from, to) as run-length encoded booked nights;
+ * every night not covered by a range is free.
+ */
+public class PropertyCalendarResponse {
+    private Long propertyId;
+    private LocalDate from;
+    private LocalDate to;
+    private List<BookedRange> booked;
+
+    public PropertyCalendarResponse() {}
+
+    public PropertyCalendarResponse(Long propertyId, LocalDate from, LocalDate to, List<BookedRange> booked) {
+        this.propertyId = propertyId;
+        this.from = from;
+        this.to = to;
+        this.booked = booked;
+    }
+
+    public Long getPropertyId() { return propertyId; }
+    public void setPropertyId(Long propertyId) { this.propertyId = propertyId; }
+
+    public LocalDate getFrom() { return from; }
+    public void setFrom(LocalDate from) { this.from = from; }
+
+    public LocalDate getTo() { return to; }
+    public void setTo(LocalDate to) { this.to = to; }
+
+    public List<BookedRange> getBooked() { return booked; }
+    public void setBooked(List<BookedRange> booked) { this.booked = booked; }
+}
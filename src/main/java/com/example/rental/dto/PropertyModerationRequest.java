@@ -0,0 +1,25 @@
+package com.example.rental.dto;
+
+import com.example.rental.model.Property.ApprovalStatus;
+
+import java.util.List;
+
+/**
+ * Bulk moderation: apply {@code decision} to the listed {@code ids}, or, when
+ * {@code ids} is omitted, to every pending property (optionally only those of
+ * {@code hostId}). An empty {@code ids} list changes nothing.
+ */
+public class PropertyModerationRequest {
+    private ApprovalStatus decision;
+    private List<Long> ids;
+    private Long hostId;
+
+    public ApprovalStatus getDecision() { return decision; }
+    public void setDecision(ApprovalStatus decision) { this.decision = decision; }
+
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+
+    public Long getHostId() { return hostId; }
+    public void setHostId(Long hostId) { this.hostId = hostId; }
+}
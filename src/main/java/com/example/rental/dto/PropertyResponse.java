@@ -0,0 +1,95 @@
+package com.example.rental.dto;
+
+import com.example.rental.model.Property;
+import com.example.rental.model.Property.ApprovalStatus;
+import com.example.rental.model.Property.PropertyStatus;
+import com.example.rental.model.Property.PropertyType;
+
+/**
+ * Flat listing row: the property's own columns plus the id of the host, never the
+ * host entity itself.
+ */
+public class PropertyResponse {
+    private Long id;
+    private String name;
+    private String location;
+    private Double price;
+    private boolean available;
+    private PropertyType type;
+    private PropertyStatus status;
+    private ApprovalStatus approvalStatus;
+    private boolean scouted;
+    private Long hostId;
+
+    public PropertyResponse() {}
+
+    // Used by JPQL constructor expressions in PropertyRepository.
+    public PropertyResponse(
+            Long id,
+            String name,
+            String location,
+            Double price,
+            boolean available,
+            PropertyType type,
+            PropertyStatus status,
+            ApprovalStatus approvalStatus,
+            boolean scouted,
+            Long hostId
+    ) {
+        this.id = id;
+        this.name = name;
+        this.location = location;
+        this.price = price;
+        this.available = available;
+        this.type = type;
+        this.status = status;
+        this.approvalStatus = approvalStatus;
+        this.scouted = scouted;
+        this.hostId = hostId;
+    }
+
+    public static PropertyResponse from(Property property) {
+        return new PropertyResponse(
+                property.getId(),
+                property.getName(),
+                property.getLocation(),
+                property.getPrice(),
+                property.isAvailable(),
+                property.getType(),
+                property.getStatus(),
+                property.getApprovalStatus(),
+                property.isScouted(),
+                property.getCreatedBy() == null ? null : property.getCreatedBy().getId()
+        );
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getLocation() { return location; }
+    public void setLocation(String location) { this.location = location; }
+
+    public Double getPrice() { return price; }
+    public void setPrice(Double price) { this.price = price; }
+
+    public boolean isAvailable() { return available; }
+    public void setAvailable(boolean available) { this.available = available; }
+
+    public PropertyType getType() { return type; }
+    public void setType(PropertyType type) { this.type = type; }
+
+    public PropertyStatus getStatus() { return status; }
+    public void setStatus(PropertyStatus status) { this.status = status; }
+
+    public ApprovalStatus getApprovalStatus() { return approvalStatus; }
+    public void setApprovalStatus(ApprovalStatus approvalStatus) { this.approvalStatus = approvalStatus; }
+
+    public boolean isScouted() { return scouted; }
+    public void setScouted(boolean scouted) { this.scouted = scouted; }
+
+    public Long getHostId() { return hostId; }
+    public void setHostId(Long hostId) { this.hostId = hostId; }
+}
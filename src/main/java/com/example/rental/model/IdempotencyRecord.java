@@ -0,0 +1,72 @@
+package com.example.rental.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * The stored result of a {@code POST /bookings} call made with an
+ * {@code Idempotency-Key}. Written in the booking's own transaction, so either both
+ * exist or neither does; the primary key then stops a second instance from booking
+ * the same key twice.
+ */
+@Entity
+@Table(name = "idempotency_record")
+public class IdempotencyRecord implements Persistable<String> {
+
+    // SHA-256 of the caller and the key, so the key itself can be any length up to the header limit.
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Column(nullable = false)
+    private String ownerEmail;
+
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(nullable = false, length = 4000)
+    private String response;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Assigned ids would otherwise make save() merge, which selects the row first.
+    @Transient
+    private boolean isNew = true;
+
+    public IdempotencyRecord() {}
+
+    public IdempotencyRecord(String id, String ownerEmail, String requestHash, String response) {
+        this.id = id;
+        this.ownerEmail = ownerEmail;
+        this.requestHash = requestHash;
+        this.response = response;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    @Override
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getOwnerEmail() { return ownerEmail; }
+    public void setOwnerEmail(String ownerEmail) { this.ownerEmail = ownerEmail; }
+
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+
+    public String getResponse() { return response; }
+    public void setResponse(String response) { this.response = response; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
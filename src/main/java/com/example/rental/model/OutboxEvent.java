@@ -0,0 +1,89 @@
+package com.example.rental.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A domain event recorded in the same transaction as the change it describes and
+ * delivered afterwards by the outbox relay. {@code processedAt} stays null until
+ * every in-process subscriber has handled it.
+ */
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEvent {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    // Pooled sequence, like Booking, so a batch of bookings writes its events as one JDBC batch.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 50)
+    private Long id;
+
+    // Assigned by the database at insert (identity / AUTO_INCREMENT), so unlike the pooled id it
+    // follows insert order across instances. Only read back when the row is loaded.
+    @Column(insertable = false, updatable = false)
+    private Long sequenceNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+
+    @Column(nullable = false)
+    private Long aggregateId;
+
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime processedAt;
+
+    private int attempts;
+
+    @Column(length = MAX_ERROR_LENGTH)
+    private String lastError;
+
+    public enum Type { BOOKING_CREATED, BOOKING_CONFIRMED, BOOKING_CANCELLED }
+
+    public OutboxEvent() {}
+
+    public OutboxEvent(Type type, Long aggregateId, String payload) {
+        this.type = type;
+        this.aggregateId = aggregateId;
+        this.payload = payload;
+    }
+
+    public void recordFailure(RuntimeException ex) {
+        attempts++;
+        String message = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+        lastError = message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getSequenceNumber() { return sequenceNumber; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public Long getAggregateId() { return aggregateId; }
+    public void setAggregateId(Long aggregateId) { this.aggregateId = aggregateId; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+}
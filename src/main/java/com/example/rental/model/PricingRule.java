@@ -0,0 +1,69 @@
+package com.example.rental.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * One adjustment to a property's nightly price. Which fields apply depends on the type:
+ * <ul>
+ *   <li>{@code SEASON}: nights from {@code startDate} to {@code endDate}, both inclusive.</li>
+ *   <li>{@code WEEKEND}: Friday and Saturday nights.</li>
+ *   <li>{@code LENGTH_OF_STAY}: the whole stay when it is at least {@code minNights} long;
+ *       only the longest matching rule counts.</li>
+ *   <li>{@code OCCUPANCY}: nights in a calendar month whose booked share has reached
+ *       {@code threshold}; only the highest threshold reached counts.</li>
+ * </ul>
+ * Every rule that applies multiplies the price by its {@code multiplier}.
+ */
+@Entity
+@Table(name = "pricing_rule")
+public class PricingRule {
+    // Pooled sequence so replacing a property's rules is sent as one JDBC batch.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pricing_rule_seq")
+    @SequenceGenerator(name = "pricing_rule_seq", sequenceName = "pricing_rule_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "property_id")
+    private Property property;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+
+    @Column(nullable = false)
+    private double multiplier;
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Integer minNights;
+    private Double threshold;
+
+    public enum Type { SEASON, WEEKEND, LENGTH_OF_STAY, OCCUPANCY }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Property getProperty() { return property; }
+    public void setProperty(Property property) { this.property = property; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public double getMultiplier() { return multiplier; }
+    public void setMultiplier(double multiplier) { this.multiplier = multiplier; }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+    public Integer getMinNights() { return minNights; }
+    public void setMinNights(Integer minNights) { this.minNights = minNights; }
+
+    public Double getThreshold() { return threshold; }
+    public void setThreshold(Double threshold) { this.threshold = threshold; }
+}
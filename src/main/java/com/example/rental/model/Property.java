@@ -1,6 +1,7 @@
 package com.example.rental.model;
 
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
 
 @Entity
 public class Property {
@@ -27,6 +28,14 @@ public class Property {
 
     private boolean isScouted = false;
 
+    // Bumped on every accepted booking so concurrent admissions for the same property conflict.
+    @Version
+    private Long version;
+
+    // Moved by edits and moderation, not by booking version bumps; the search index refreshes from it.
+    @Column(nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
     public enum PropertyType { RENT, SALE }
     public enum PropertyStatus { AVAILABLE, BOOKED, MAINTENANCE }
     public enum ApprovalStatus { PENDING, APPROVED, REJECTED }
@@ -69,4 +78,13 @@ public class Property {
 
     public User getCreatedBy() { return createdBy; }
     public void setCreatedBy(User createdBy) { this.createdBy = createdBy; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    @PreUpdate
+    void touch() { updatedAt = LocalDateTime.now(); }
 }
@@ -1,5 +1,6 @@
 package com.example.rental.model;
 
+import com.example.rental.config.UserCacheEvictionListener;
 import jakarta.persistence.*;
 import java.util.Collection;
 import java.util.List;
@@ -9,6 +10,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCacheEvictionListener.class)
 public class User implements UserDetails {
 
     @Id
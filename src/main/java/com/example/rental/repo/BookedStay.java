@@ -0,0 +1,7 @@
+package com.example.rental.repo;
+
+import java.time.LocalDate;
+
+/** The dates of one booking of a property, read without loading the booking. */
+public record BookedStay(Long bookingId, Long propertyId, LocalDate checkInDate, LocalDate checkOutDate) {
+}
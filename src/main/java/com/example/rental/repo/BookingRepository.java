@@ -1,18 +1,176 @@
 package com.example.rental.repo;
 
+import com.example.rental.dto.BookingResponse;
 import com.example.rental.model.Booking;
 import com.example.rental.model.Booking.BookingStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findByUserIdOrderByCreatedAtDesc(Long userId);
-    List<Booking> findAllByOrderByCreatedAtDesc();
-    List<Booking> findByPropertyCreatedByIdOrderByCreatedAtDesc(Long hostUserId);
+    List<Booking> findByStatusIn(List<BookingStatus> statuses);
+
+    // Availability index: only stays that have not ended, as narrow rows rather than bookings.
+    @Query("""
+            SELECT DISTINCT new com.example.rental.repo.PropertyVersion(p.id, p.version)
+            FROM Booking b JOIN b.property p
+            WHERE b.status IN :statuses AND b.checkOutDate > :today
+            """)
+    List<PropertyVersion> findPropertyVersionsWithStaysEndingAfter(
+            @Param("statuses") List<BookingStatus> statuses,
+            @Param("today") LocalDate today
+    );
+
+    @Query("""
+            SELECT new com.example.rental.repo.BookedStay(b.id, b.property.id, b.checkInDate, b.checkOutDate)
+            FROM Booking b
+            WHERE b.status IN :statuses AND b.checkOutDate > :today
+            """)
+    List<BookedStay> findStaysEndingAfter(
+            @Param("statuses") List<BookingStatus> statuses,
+            @Param("today") LocalDate today
+    );
+
+    @Query("""
+            SELECT new com.example.rental.repo.BookedStay(b.id, b.property.id, b.checkInDate, b.checkOutDate)
+            FROM Booking b
+            WHERE b.property.id = :propertyId AND b.status IN :statuses AND b.checkOutDate > :today
+            """)
+    List<BookedStay> findStaysOfPropertyEndingAfter(
+            @Param("propertyId") Long propertyId,
+            @Param("statuses") List<BookingStatus> statuses,
+            @Param("today") LocalDate today
+    );
+
+    // Status changes hold the booking's row lock from the read until commit, so two changes to one
+    // booking commit, and write their outbox events, one after the other.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id = :id")
+    Optional<Booking> findByIdForUpdate(@Param("id") Long id);
+
+    // List endpoints read BookingResponse rows directly so the lazy property and
+    // user associations are joined in the same SELECT instead of loaded per row.
+    @Query("""
+            SELECT new com.example.rental.dto.BookingResponse(
+                b.id, p.id, p.name, p.location, u.email,
+                b.checkInDate, b.checkOutDate, b.totalAmount, b.status, b.createdAt)
+            FROM Booking b JOIN b.property p JOIN b.user u
+            WHERE u.id = :userId
+            ORDER BY b.createdAt DESC, b.id DESC
+            """)
+    List<BookingResponse> findResponsesByUserId(@Param("userId") Long userId);
+
+    @Query("""
+            SELECT new com.example.rental.dto.BookingResponse(
+                b.id, p.id, p.name, p.location, u.email,
+                b.checkInDate, b.checkOutDate, b.totalAmount, b.status, b.createdAt)
+            FROM Booking b JOIN b.property p JOIN b.user u
+            WHERE p.createdBy.id = :hostUserId
+            ORDER BY b.createdAt DESC, b.id DESC
+            """)
+    List<BookingResponse> findResponsesByHostId(@Param("hostUserId") Long hostUserId);
+
+    @Query("""
+            SELECT new com.example.rental.dto.BookingResponse(
+                b.id, p.id, p.name, p.location, u.email,
+                b.checkInDate, b.checkOutDate, b.totalAmount, b.status, b.createdAt)
+            FROM Booking b JOIN b.property p JOIN b.user u
+            ORDER BY b.createdAt DESC, b.id DESC
+            """)
+    List<BookingResponse> findAllResponses();
+
+    // Keyset windows ordered by (createdAt, id) descending; a null cursor starts from the newest row.
+    @Query("""
+            SELECT new com.example.rental.dto.BookingResponse(
+                b.id, p.id, p.name, p.location, u.email,
+                b.checkInDate, b.checkOutDate, b.totalAmount, b.status, b.createdAt)
+            FROM Booking b JOIN b.property p JOIN b.user u
+            WHERE u.id = :userId
+              AND (:createdAt IS NULL OR b.createdAt < :createdAt
+                   OR (b.createdAt = :createdAt AND b.id < :id))
+            ORDER BY b.createdAt DESC, b.id DESC
+            """)
+    Slice<BookingResponse> findUserWindow(
+            @Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
+
+    @Query("""
+            SELECT new com.example.rental.dto.BookingResponse(
+                b.id, p.id, p.name, p.location, u.email,
+                b.checkInDate, b.checkOutDate, b.totalAmount, b.status, b.createdAt)
+            FROM Booking b JOIN b.property p JOIN b.user u
+            WHERE p.createdBy.id = :hostUserId
+              AND (:createdAt IS NULL OR b.createdAt < :createdAt
+                   OR (b.createdAt = :createdAt AND b.id < :id))
+            ORDER BY b.createdAt DESC, b.id DESC
+            """)
+    Slice<BookingResponse> findHostWindow(
+            @Param("hostUserId") Long hostUserId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
+
+    @Query("""
+            SELECT new com.example.rental.dto.BookingResponse(
+                b.id, p.id, p.name, p.location, u.email,
+                b.checkInDate, b.checkOutDate, b.totalAmount, b.status, b.createdAt)
+            FROM Booking b JOIN b.property p JOIN b.user u
+            WHERE :createdAt IS NULL OR b.createdAt < :createdAt
+               OR (b.createdAt = :createdAt AND b.id < :id)
+            ORDER BY b.createdAt DESC, b.id DESC
+            """)
+    Slice<BookingResponse> findAllWindow(
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
+
+    // Unmanaged DTO rows read through a JDBC cursor; must be consumed inside a transaction and closed.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new com.example.rental.dto.BookingResponse(
+                b.id, p.id, p.name, p.location, u.email,
+                b.checkInDate, b.checkOutDate, b.totalAmount, b.status, b.createdAt)
+            FROM Booking b JOIN b.property p JOIN b.user u
+            ORDER BY b.createdAt DESC, b.id DESC
+            """)
+    Stream<BookingResponse> streamAllForExport();
+
+    // Stays on any of the given properties that intersect [from, to); used to validate a whole batch at once.
+    @Query("""
+            SELECT b FROM Booking b
+            WHERE b.property.id IN :propertyIds
+              AND b.status IN :statuses
+              AND b.checkInDate < :to
+              AND b.checkOutDate > :from
+            """)
+    List<Booking> findStaysIntersecting(
+            @Param("propertyIds") Collection<Long> propertyIds,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to,
+            @Param("statuses") List<BookingStatus> statuses
+    );
 
     @Query("""
             SELECT COUNT(b) > 0 FROM Booking b
@@ -0,0 +1,24 @@
+package com.example.rental.repo;
+
+import com.example.rental.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    // Records past the ttl may still be waiting for the purge; they are never replayed.
+    @Query("SELECT r FROM IdempotencyRecord r WHERE r.id = :id AND r.createdAt > :cutoff")
+    Optional<IdempotencyRecord> findCreatedAfter(@Param("id") String id, @Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.createdAt <= :cutoff")
+    int deleteExpired(@Param("id") String id, @Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,42 @@
+package com.example.rental.repo;
+
+import com.example.rental.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    // Oldest undelivered events first. Rows locked by another instance's relay are skipped
+    // (lock timeout -2 is SKIP LOCKED) on databases that support it; H2 waits instead.
+    // An event whose booking still has an earlier undelivered event is left out, so a relay
+    // that skipped a locked CREATED row cannot deliver the CONFIRMED behind it first.
+    // Order is the database-assigned sequenceNumber: ids come from per-instance pooled blocks.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            SELECT e FROM OutboxEvent e
+            WHERE e.processedAt IS NULL AND e.attempts < :maxAttempts
+              AND NOT EXISTS (
+                  SELECT 1 FROM OutboxEvent earlier
+                  WHERE earlier.aggregateId = e.aggregateId
+                    AND earlier.sequenceNumber < e.sequenceNumber
+                    AND earlier.processedAt IS NULL
+                    AND earlier.attempts < :maxAttempts
+              )
+            ORDER BY e.sequenceNumber
+            """)
+    List<OutboxEvent> findPending(@Param("maxAttempts") int maxAttempts, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,20 @@
+package com.example.rental.repo;
+
+import com.example.rental.model.PricingRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PricingRuleRepository extends JpaRepository<PricingRule, Long> {
+    // One query for the rules of every property a booking batch touches.
+    @Query("SELECT r FROM PricingRule r WHERE r.property.id IN :propertyIds ORDER BY r.id")
+    List<PricingRule> findByPropertyIds(@Param("propertyIds") Collection<Long> propertyIds);
+
+    @Modifying
+    @Query("DELETE FROM PricingRule r WHERE r.property.id = :propertyId")
+    int deleteByPropertyId(@Param("propertyId") Long propertyId);
+}
@@ -1,22 +1,45 @@
 package com.example.rental.repo;
 
+import com.example.rental.dto.PropertyResponse;
 import com.example.rental.model.Property;
+import com.example.rental.model.Booking.BookingStatus;
 import com.example.rental.model.Property.ApprovalStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface PropertyRepository extends JpaRepository<Property, Long> {
-    List<Property> findByAvailableTrue();
-    List<Property> findByApprovalStatus(ApprovalStatus approvalStatus);
-    List<Property> findByApprovalStatusAndAvailableTrue(ApprovalStatus approvalStatus);
-    List<Property> findByCreatedByIdOrderByIdDesc(Long createdById);
+public interface PropertyRepository extends JpaRepository<Property, Long>, JpaSpecificationExecutor<Property> {
+    // Flat listing columns plus the host's id read from the foreign key, so no User row is joined or loaded.
+    String AS_RESPONSE = """
+            SELECT new com.example.rental.dto.PropertyResponse(
+                p.id, p.name, p.location, p.price, p.available,
+                p.type, p.status, p.approvalStatus, p.isScouted, p.createdBy.id)
+            FROM Property p
+            """;
 
-    @Query("""
-            SELECT p FROM Property p
+    String AS_SEARCH_ROW = """
+            SELECT new com.example.rental.repo.PropertySearchRow(
+                p.id, p.version, p.name, p.location, p.price, p.available, p.approvalStatus, p.updatedAt)
+            FROM Property p
+            """;
+
+    String APPROVED_SEARCH_FILTER = """
             WHERE p.approvalStatus = :approvalStatus
               AND (:query IS NULL OR
                   LOWER(p.name) LIKE LOWER(CONCAT('%', :query, '%')) OR
@@ -24,13 +47,122 @@ public interface PropertyRepository extends JpaRepository<Property, Long> {
               AND (:minPrice IS NULL OR p.price >= :minPrice)
               AND (:maxPrice IS NULL OR p.price <= :maxPrice)
               AND (:available IS NULL OR p.available = :available)
+              AND (:checkIn IS NULL OR NOT EXISTS (
+                  SELECT 1 FROM Booking b
+                  WHERE b.property.id = p.id
+                    AND b.status IN :activeStatuses
+                    AND b.checkInDate < :checkOut
+                    AND b.checkOutDate > :checkIn))
+            """;
+
+    // Search index warm-up: approved listings a page at a time in id order, as narrow rows.
+    @Query(AS_SEARCH_ROW + "WHERE p.approvalStatus = :approvalStatus AND p.id > :afterId ORDER BY p.id")
+    List<PropertySearchRow> findSearchRowsByApprovalStatus(
+            @Param("approvalStatus") ApprovalStatus approvalStatus,
+            @Param("afterId") Long afterId,
+            Limit limit
+    );
+
+    // Search index refresh: listings edited or moderated since the given time, whatever their status, in
+    // (updatedAt, id) keyset pages so the updated_at index is read in order from the first row after the cursor.
+    @Query(AS_SEARCH_ROW + """
+            WHERE p.updatedAt >= :updatedAt AND (p.updatedAt > :updatedAt OR p.id > :afterId)
+            ORDER BY p.updatedAt, p.id
             """)
-    Page<Property> searchApproved(
+    List<PropertySearchRow> findSearchRowsUpdatedSince(
+            @Param("updatedAt") LocalDateTime updatedAt,
+            @Param("afterId") Long afterId,
+            Limit limit
+    );
+
+    @Query(AS_RESPONSE + "WHERE p.id = :id")
+    Optional<PropertyResponse> findResponseById(@Param("id") Long id);
+
+    @Query(AS_RESPONSE + "WHERE p.id IN :ids")
+    List<PropertyResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(AS_RESPONSE + "ORDER BY p.id")
+    List<PropertyResponse> findAllResponses();
+
+    @Query(AS_RESPONSE + "WHERE p.approvalStatus = :approvalStatus ORDER BY p.id")
+    List<PropertyResponse> findResponsesByApprovalStatus(@Param("approvalStatus") ApprovalStatus approvalStatus);
+
+    @Query(AS_RESPONSE + "WHERE p.approvalStatus = :approvalStatus AND p.available = true ORDER BY p.id")
+    List<PropertyResponse> findAvailableResponses(@Param("approvalStatus") ApprovalStatus approvalStatus);
+
+    @Query(AS_RESPONSE + "WHERE p.createdBy.id = :hostId ORDER BY p.id DESC")
+    List<PropertyResponse> findResponsesByHostId(@Param("hostId") Long hostId);
+
+    @Query("SELECT p.version FROM Property p WHERE p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // Loads the property for a booking write and bumps its version on commit.
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT p FROM Property p WHERE p.id = :id")
+    Optional<Property> findByIdForBooking(@Param("id") Long id);
+
+    // Cancellations lock the row and bump the version straight away, so they do not fail on a
+    // booking committed meanwhile; a racing admission fails its version check instead.
+    @Lock(LockModeType.PESSIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT p FROM Property p WHERE p.id = :id")
+    Optional<Property> findByIdForCancellation(@Param("id") Long id);
+
+    // Batch variant of findByIdForBooking: every returned property's version is bumped on commit.
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT p FROM Property p WHERE p.id IN :ids")
+    List<Property> findAllByIdForBooking(@Param("ids") Collection<Long> ids);
+
+    // Bulk moderation: pick the ids first so change events can name them, then update them set-wise.
+    @Query("SELECT p.id FROM Property p WHERE p.id IN :ids AND p.approvalStatus <> :target")
+    List<Long> findIdsToModerate(@Param("ids") Collection<Long> ids, @Param("target") ApprovalStatus target);
+
+    @Query("""
+            SELECT p.id FROM Property p
+            WHERE p.approvalStatus = com.example.rental.model.Property.ApprovalStatus.PENDING
+              AND (:hostId IS NULL OR p.createdBy.id = :hostId)
+            """)
+    List<Long> findPendingIds(@Param("hostId") Long hostId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE VERSIONED Property p
+            SET p.approvalStatus = com.example.rental.model.Property.ApprovalStatus.APPROVED,
+                p.updatedAt = LOCAL DATETIME
+            WHERE p.id IN :ids
+            """)
+    int approveAll(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE VERSIONED Property p
+            SET p.approvalStatus = com.example.rental.model.Property.ApprovalStatus.REJECTED,
+                p.available = false,
+                p.updatedAt = LOCAL DATETIME
+            WHERE p.id IN :ids
+            """)
+    int rejectAll(@Param("ids") Collection<Long> ids);
+
+    // Unmanaged DTO rows read through a JDBC cursor; must be consumed inside a transaction and closed.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(AS_RESPONSE + "ORDER BY p.id")
+    Stream<PropertyResponse> streamAllForExport();
+
+    @Query(
+            value = AS_RESPONSE + APPROVED_SEARCH_FILTER,
+            countQuery = "SELECT COUNT(p) FROM Property p " + APPROVED_SEARCH_FILTER
+    )
+    Page<PropertyResponse> searchApproved(
             @Param("approvalStatus") ApprovalStatus approvalStatus,
             @Param("query") String query,
             @Param("minPrice") Double minPrice,
             @Param("maxPrice") Double maxPrice,
             @Param("available") Boolean available,
+            @Param("checkIn") LocalDate checkIn,
+            @Param("checkOut") LocalDate checkOut,
+            @Param("activeStatuses") Collection<BookingStatus> activeStatuses,
             Pageable pageable
     );
 }
@@ -0,0 +1,18 @@
+package com.example.rental.repo;
+
+import com.example.rental.model.Property.ApprovalStatus;
+
+import java.time.LocalDateTime;
+
+/** The columns the search index keeps for a property, read without loading the property. */
+public record PropertySearchRow(
+        Long id,
+        Long version,
+        String name,
+        String location,
+        Double price,
+        boolean available,
+        ApprovalStatus approvalStatus,
+        LocalDateTime updatedAt
+) {
+}
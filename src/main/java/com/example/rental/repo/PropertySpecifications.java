@@ -0,0 +1,113 @@
+package com.example.rental.repo;
+
+import com.example.rental.model.Booking;
+import com.example.rental.model.Booking.BookingStatus;
+import com.example.rental.model.Property;
+import com.example.rental.model.Property.ApprovalStatus;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Criteria counterparts of {@link PropertyRepository#searchApproved} used where the
+ * query shape is decided at runtime, such as keyset pagination.
+ */
+public final class PropertySpecifications {
+
+    private PropertySpecifications() {
+    }
+
+    public static Specification<Property> approvedMatching(
+            String query,
+            Double minPrice,
+            Double maxPrice,
+            Boolean available
+    ) {
+        return (root, criteriaQuery, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("approvalStatus"), ApprovalStatus.APPROVED));
+            if (query != null) {
+                String pattern = "%" + query.toLowerCase(Locale.ROOT) + "%";
+                predicates.add(cb.or(
+                        cb.like(cb.lower(root.get("name")), pattern),
+                        cb.like(cb.lower(root.get("location")), pattern)
+                ));
+            }
+            if (minPrice != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), minPrice));
+            }
+            if (maxPrice != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), maxPrice));
+            }
+            if (available != null) {
+                predicates.add(cb.equal(root.get("available"), available));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Properties with no stay in {@code statuses} intersecting [checkIn, checkOut),
+     * written as a correlated NOT EXISTS so the database can answer it from the
+     * booking (property_id, status, check_in_date, check_out_date) index.
+     */
+    public static Specification<Property> freeBetween(
+            LocalDate checkIn,
+            LocalDate checkOut,
+            Collection<BookingStatus> statuses
+    ) {
+        return (root, criteriaQuery, cb) -> {
+            Subquery<Integer> stays = criteriaQuery.subquery(Integer.class);
+            Root<Booking> booking = stays.from(Booking.class);
+            stays.select(cb.literal(1)).where(
+                    cb.equal(booking.get("property").get("id"), root.get("id")),
+                    booking.get("status").in(statuses),
+                    cb.lessThan(booking.get("checkInDate"), checkOut),
+                    cb.greaterThan(booking.get("checkOutDate"), checkIn)
+            );
+            return cb.not(cb.exists(stays));
+        };
+    }
+
+    /**
+     * Rows strictly after ({@code sortValue}, {@code id}) in (attribute, id) order,
+     * ascending or descending. Rows whose attribute is null are not reachable by a seek.
+     */
+    public static <T extends Comparable<? super T>> Specification<Property> after(
+            String attribute,
+            T sortValue,
+            Long id,
+            boolean ascending
+    ) {
+        return (root, criteriaQuery, cb) -> {
+            Path<T> key = root.get(attribute);
+            Path<Long> rowId = root.get("id");
+            if ("id".equals(attribute)) {
+                return beyond(cb, rowId, id, ascending);
+            }
+            return cb.or(
+                    beyond(cb, key, sortValue, ascending),
+                    cb.and(cb.equal(key, sortValue), beyond(cb, rowId, id, ascending))
+            );
+        };
+    }
+
+    private static <T extends Comparable<? super T>> Predicate beyond(
+            CriteriaBuilder cb,
+            Expression<? extends T> expression,
+            T value,
+            boolean ascending
+    ) {
+        return ascending ? cb.greaterThan(expression, value) : cb.lessThan(expression, value);
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.rental.repo;
+
+/** A property's optimistic-lock version, read without loading the property. */
+public record PropertyVersion(Long propertyId, Long version) {
+}
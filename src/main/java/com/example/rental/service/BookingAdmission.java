@@ -0,0 +1,85 @@
+package com.example.rental.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Serializes booking writes per property without a global lock. Each property id
+ * maps onto one of a fixed set of lock stripes, so bookings for unrelated
+ * properties proceed in parallel while two requests for the same property take
+ * turns through check-then-insert.
+ * <p>
+ * The work runs in its own transaction which commits before the stripe is
+ * released, and {@code afterCommit} runs while the stripe is still held. That
+ * lets callers publish the result to in-memory state such as
+ * {@link BookingAvailabilityIndex} before the next request for the property looks.
+ * <p>
+ * Stripes only order requests within one instance. Across instances the booking
+ * transaction confirms the dates are free in the database and bumps the property's
+ * version, so of two racing admissions the later commit fails.
+ */
+@Component
+public class BookingAdmission {
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final TransactionTemplate transactionTemplate;
+
+    public BookingAdmission(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T admit(Long propertyId, Supplier<T> work, Consumer<T> afterCommit) {
+        ReentrantLock lock = stripeFor(propertyId);
+        lock.lock();
+        try {
+            T result = transactionTemplate.execute(status -> work.get());
+            afterCommit.accept(result);
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Like {@link #admit} for work that touches several properties. Stripes are
+     * taken in ascending order, so two batches with overlapping properties cannot
+     * deadlock against each other or against single admissions.
+     */
+    public <T> T admitAll(Collection<Long> propertyIds, Supplier<T> work, Consumer<T> afterCommit) {
+        int[] indexes = propertyIds.stream().mapToInt(BookingAdmission::stripeIndex).distinct().sorted().toArray();
+        int locked = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                locked++;
+            }
+            T result = transactionTemplate.execute(status -> work.get());
+            afterCommit.accept(result);
+            return result;
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    private ReentrantLock stripeFor(Long propertyId) {
+        return stripes[stripeIndex(propertyId)];
+    }
+
+    private static int stripeIndex(Long propertyId) {
+        int hash = Long.hashCode(propertyId);
+        hash ^= (hash >>> 16);
+        return hash & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,360 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.BookedRange;
+import com.example.rental.model.Booking;
+import com.example.rental.model.Booking.BookingStatus;
+import com.example.rental.model.Property;
+import com.example.rental.repo.BookedStay;
+import com.example.rental.repo.BookingRepository;
+import com.example.rental.repo.PropertyVersion;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory view of the REQUESTED/CONFIRMED stays of every property that have not
+ * ended yet, so overlap checks do not need a COUNT query against the booking table.
+ * <p>
+ * Every booking and cancellation bumps the property's {@code version} in the
+ * database, and each property's stays remember the version they are known to be
+ * current for. Local changes advance it as they commit; a change made by another
+ * instance leaves a gap, and the versioned lookups ({@link #occupancy(Long, long, LocalDate, LocalDate)},
+ * {@link #hasOverlap(Long, long, LocalDate, LocalDate)}) then reload the property's
+ * stays before answering. Callers must read the version before calling them, so the
+ * stays reloaded are at least as new as the version they are stamped with.
+ * <p>
+ * The index is warmed once the application is ready. Until warming finishes
+ * {@link #isReady()} is false and callers should fall back to
+ * {@link BookingRepository#existsOverlappingBooking}.
+ */
+@Component
+public class BookingAvailabilityIndex {
+    static final List<BookingStatus> ACTIVE_STATUSES = List.of(BookingStatus.REQUESTED, BookingStatus.CONFIRMED);
+    /** Version of a property whose stays have not been matched to a database version. */
+    public static final long UNSYNCED = Long.MIN_VALUE;
+
+    private final BookingRepository bookingRepository;
+    private final Map<Long, PropertyStays> staysByProperty = new ConcurrentHashMap<>();
+    // Seeded from the clock so revisions handed out after a restart do not repeat earlier ones.
+    private final AtomicLong revisions = new AtomicLong(System.currentTimeMillis() << 16);
+    private volatile boolean ready;
+
+    public BookingAvailabilityIndex(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        LocalDate today = LocalDate.now();
+        // Versions first: the stays read after them are at least that new.
+        Map<Long, Long> versions = bookingRepository.findPropertyVersionsWithStaysEndingAfter(ACTIVE_STATUSES, today)
+                .stream()
+                .collect(Collectors.toMap(PropertyVersion::propertyId, PropertyVersion::version));
+        Map<Long, List<Stay>> staysByPropertyId = bookingRepository.findStaysEndingAfter(ACTIVE_STATUSES, today).stream()
+                .collect(Collectors.groupingBy(BookedStay::propertyId, Collectors.mapping(Stay::of, Collectors.toList())));
+        staysByPropertyId.forEach((propertyId, stays) ->
+                stays(propertyId).warm(stays, versions.getOrDefault(propertyId, UNSYNCED)));
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Overlap check that is exact for the property at {@code version}, its current
+     * version in the database, reloading its stays first if they are behind.
+     */
+    public boolean hasOverlap(Long propertyId, long version, LocalDate checkInDate, LocalDate checkOutDate) {
+        return sync(propertyId, version).overlaps(checkInDate, checkOutDate);
+    }
+
+    /**
+     * Booked nights of the property within [from, to) as merged runs, as of the
+     * property's current database {@code version}, reloading its stays first if
+     * they are behind. The returned version is the one the runs are current for,
+     * never older than {@code version}.
+     */
+    public Occupancy occupancy(Long propertyId, long version, LocalDate from, LocalDate to) {
+        return sync(propertyId, version).occupancy(from, to);
+    }
+
+    /**
+     * Changes whenever this instance's view of the property's stays changes, for
+     * caches derived from {@link #occupancy(Long, long, LocalDate, LocalDate)}. Like
+     * that method it reloads the stays first if they are behind {@code version}.
+     */
+    public long revision(Long propertyId, long version) {
+        return sync(propertyId, version).revision();
+    }
+
+    /**
+     * Applies bookings of one property committed together with the property at
+     * {@code version}. If the stays were current for the version before it they
+     * are current for this one afterwards; otherwise the gap is filled by the next
+     * versioned lookup.
+     */
+    public void apply(Long propertyId, long version, Collection<Booking> bookings) {
+        PropertyStays stays = stays(propertyId);
+        stays.apply(bookings.stream().filter(booking -> booking.getId() != null).toList(), version);
+    }
+
+    /** The version to pass to the versioned lookups for a property as loaded. */
+    static long versionOf(Property property) {
+        return property.getVersion() == null ? UNSYNCED : property.getVersion();
+    }
+
+    private PropertyStays stays(Long propertyId) {
+        return staysByProperty.computeIfAbsent(propertyId, id -> new PropertyStays(revisions::incrementAndGet));
+    }
+
+    // Reloaded outside the property's lock; of two racing reloads, replace() keeps the newer one.
+    private PropertyStays sync(Long propertyId, long version) {
+        PropertyStays stays = stays(propertyId);
+        long synced = stays.syncedVersion();
+        if (synced == UNSYNCED || synced < version) {
+            List<Stay> reloaded = bookingRepository
+                    .findStaysOfPropertyEndingAfter(propertyId, ACTIVE_STATUSES, LocalDate.now()).stream()
+                    .map(Stay::of)
+                    .toList();
+            stays.replace(reloaded, version);
+        }
+        return stays;
+    }
+
+    record Stay(Long bookingId, LocalDate checkInDate, LocalDate checkOutDate) {
+        static Stay of(Booking booking) {
+            return new Stay(booking.getId(), booking.getCheckInDate(), booking.getCheckOutDate());
+        }
+
+        static Stay of(BookedStay stay) {
+            return new Stay(stay.bookingId(), stay.checkInDate(), stay.checkOutDate());
+        }
+
+        long nights() {
+            return ChronoUnit.DAYS.between(checkInDate, checkOutDate);
+        }
+    }
+
+    record Occupancy(long version, long revision, List<BookedRange> booked) {
+    }
+
+    /**
+     * Clips stays ordered by check-in to [from, to) and merges overlapping or
+     * back-to-back ones into single runs.
+     */
+    static List<BookedRange> bookedRuns(Iterable<Stay> staysByCheckIn, LocalDate from, LocalDate to) {
+        List<BookedRange> runs = new ArrayList<>();
+        BookedRange last = null;
+        for (Stay stay : staysByCheckIn) {
+            if (!stay.checkInDate().isBefore(to)) {
+                break;
+            }
+            if (!stay.checkOutDate().isAfter(from)) {
+                continue;
+            }
+            LocalDate start = stay.checkInDate().isBefore(from) ? from : stay.checkInDate();
+            LocalDate end = stay.checkOutDate().isAfter(to) ? to : stay.checkOutDate();
+            if (last != null && !start.isAfter(last.getTo())) {
+                if (end.isAfter(last.getTo())) {
+                    last.setTo(end);
+                }
+            } else {
+                last = new BookedRange(start, end);
+                runs.add(last);
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Stays of one property ordered by check-in. The longest stay seen bounds how
+     * far back an overlap search has to look, so legacy overlapping rows are still
+     * detected without scanning the whole set. Stays that have ended are dropped
+     * whenever the set is read or changed.
+     * <p>
+     * Guarded by a {@link ReentrantLock} rather than {@code synchronized} so a
+     * virtual thread waiting here unmounts instead of pinning its carrier.
+     */
+    static final class PropertyStays {
+        private static final Comparator<Stay> ORDER = Comparator
+                .comparing(Stay::checkInDate)
+                .thenComparing(Stay::bookingId);
+
+        private final NavigableSet<Stay> byCheckIn = new TreeSet<>(ORDER);
+        private final Map<Long, Stay> byBookingId = new HashMap<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LongSupplier nextRevision;
+        private long longestStay;
+        private long syncedVersion = UNSYNCED;
+        private long revision;
+
+        PropertyStays(LongSupplier nextRevision) {
+            this.nextRevision = nextRevision;
+        }
+
+        /*
+         * The stays always reflect the database at or after syncedVersion, so a lookup at that
+         * version can trust them. A change at or below it is already in them and is skipped;
+         * one right after it advances it; one further ahead is applied but leaves a gap.
+         * Unversioned changes drop the stamp.
+         */
+        void apply(Collection<Booking> bookings, long version) {
+            lock.lock();
+            try {
+                if (version != UNSYNCED && syncedVersion != UNSYNCED && version <= syncedVersion) {
+                    return;
+                }
+                for (Booking booking : bookings) {
+                    if (ACTIVE_STATUSES.contains(booking.getStatus())) {
+                        put(Stay.of(booking));
+                    } else {
+                        remove(booking.getId());
+                    }
+                }
+                evictEnded();
+                revision = nextRevision.getAsLong();
+                if (version == UNSYNCED) {
+                    syncedVersion = UNSYNCED;
+                } else if (syncedVersion != UNSYNCED && version == syncedVersion + 1) {
+                    syncedVersion = version;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Stays read from the database after it was at version; an older reload than the current stamp is dropped.
+        void replace(Collection<Stay> stays, long version) {
+            lock.lock();
+            try {
+                if (syncedVersion != UNSYNCED && version < syncedVersion) {
+                    return;
+                }
+                clear();
+                stays.forEach(this::put);
+                evictEnded();
+                syncedVersion = version;
+                revision = nextRevision.getAsLong();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Warming only fills properties no lookup has synced yet.
+        void warm(Collection<Stay> stays, long version) {
+            lock.lock();
+            try {
+                if (syncedVersion != UNSYNCED) {
+                    return;
+                }
+                stays.forEach(this::put);
+                syncedVersion = version;
+                revision = nextRevision.getAsLong();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void clear() {
+            byCheckIn.clear();
+            byBookingId.clear();
+            longestStay = 0;
+        }
+
+        private void put(Stay stay) {
+            Stay previous = byBookingId.put(stay.bookingId(), stay);
+            if (previous != null) {
+                byCheckIn.remove(previous);
+            }
+            byCheckIn.add(stay);
+            longestStay = Math.max(longestStay, stay.nights());
+        }
+
+        private void remove(Long bookingId) {
+            Stay previous = byBookingId.remove(bookingId);
+            if (previous != null) {
+                byCheckIn.remove(previous);
+            }
+        }
+
+        // Only stays that checked in before today can have ended, so the walk stops at today.
+        private void evictEnded() {
+            LocalDate today = LocalDate.now();
+            Iterator<Stay> started = byCheckIn.headSet(new Stay(Long.MIN_VALUE, today, today), false).iterator();
+            while (started.hasNext()) {
+                Stay stay = started.next();
+                if (!stay.checkOutDate().isAfter(today)) {
+                    started.remove();
+                    byBookingId.remove(stay.bookingId());
+                }
+            }
+        }
+
+        boolean overlaps(LocalDate checkInDate, LocalDate checkOutDate) {
+            lock.lock();
+            try {
+                evictEnded();
+                LocalDate earliestRelevant = checkInDate.minusDays(longestStay);
+                Stay upper = new Stay(Long.MIN_VALUE, checkOutDate, checkOutDate);
+                for (Stay stay : byCheckIn.headSet(upper, false).descendingSet()) {
+                    if (stay.checkInDate().isBefore(earliestRelevant)) {
+                        return false;
+                    }
+                    if (stay.checkOutDate().isAfter(checkInDate)) {
+                        return true;
+                    }
+                }
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long revision() {
+            lock.lock();
+            try {
+                return revision;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long syncedVersion() {
+            lock.lock();
+            try {
+                return syncedVersion;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Occupancy occupancy(LocalDate from, LocalDate to) {
+            lock.lock();
+            try {
+                evictEnded();
+                Stay lower = new Stay(Long.MIN_VALUE, from.minusDays(longestStay), from);
+                return new Occupancy(syncedVersion, revision, bookedRuns(byCheckIn.tailSet(lower, true), from, to));
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.BookingResponse;
+import com.example.rental.model.OutboxEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * A booking was created, confirmed or cancelled. Published by
+ * {@link BookingOutboxRelay} after the change committed, on the relay's thread, to
+ * plain {@code @EventListener} methods. Delivery is at least once: a listener can see
+ * the same {@code eventId} again after a failure or restart and should be idempotent.
+ */
+public record BookingEvent(long eventId, OutboxEvent.Type type, BookingResponse booking, LocalDateTime occurredAt) {
+}
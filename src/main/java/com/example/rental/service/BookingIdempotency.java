@@ -0,0 +1,253 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.BookingRequest;
+import com.example.rental.dto.BookingResponse;
+import com.example.rental.model.IdempotencyRecord;
+import com.example.rental.repo.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * {@code Idempotency-Key} support for {@code POST /bookings}. A key is scoped to the
+ * caller and remembered with a hash of the request body and the booking it produced.
+ * <ul>
+ *   <li>A repeat with the same body gets the stored response without running the
+ *       booking path; with a different body it gets 422.</li>
+ *   <li>Repeats that arrive while the first request is still running wait for it and
+ *       share its result, including its error.</li>
+ *   <li>Recent results are served from a bounded in-memory cache; older ones, and
+ *       those written by another instance, from {@code idempotency_record}.</li>
+ * </ul>
+ * Only successful bookings are recorded, so a request that failed can be retried
+ * with the same key. Records expire after {@code rental.idempotency.ttl}.
+ */
+@Component
+public class BookingIdempotency {
+    static final int MAX_KEY_LENGTH = 255;
+
+    private static final Logger log = LoggerFactory.getLogger(BookingIdempotency.class);
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Cache<String, Stored> completed;
+    private final Map<String, CompletableFuture<Stored>> inFlight = new ConcurrentHashMap<>();
+    private final Counter first;
+    private final Counter replayed;
+    private final Counter coalesced;
+    private final Counter mismatched;
+
+    public BookingIdempotency(
+            IdempotencyRecordRepository repository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${rental.idempotency.cache-size:10000}") long cacheSize,
+            @Value("${rental.idempotency.ttl:24h}") Duration ttl
+    ) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        // Read-write, so lookups go to the primary even when read replicas are configured.
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        // Entries expire when their record does, however long after it was written they were cached.
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(Expiry.creating((String id, Stored stored) -> remaining(stored)))
+                .build();
+        this.first = Counter.builder("rental.idempotency.requests").tag("result", "first").register(meterRegistry);
+        this.replayed = Counter.builder("rental.idempotency.requests").tag("result", "replayed").register(meterRegistry);
+        this.coalesced = Counter.builder("rental.idempotency.requests").tag("result", "coalesced").register(meterRegistry);
+        this.mismatched = Counter.builder("rental.idempotency.requests").tag("result", "mismatch").register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code create} at most once per caller and key. {@code create} must pass the
+     * claim to {@link #record} inside the transaction that saves the booking.
+     */
+    public BookingResponse execute(String ownerEmail, String key, BookingRequest request,
+                                   Function<Claim, BookingResponse> create) {
+        Claim claim = claim(ownerEmail, key, request);
+        Stored stored = completed.getIfPresent(claim.id());
+        if (stored != null) {
+            return replay(claim, stored, replayed);
+        }
+
+        CompletableFuture<Stored> mine = new CompletableFuture<>();
+        CompletableFuture<Stored> leader = inFlight.putIfAbsent(claim.id(), mine);
+        if (leader != null) {
+            return replay(claim, await(leader), coalesced);
+        }
+        try {
+            stored = lookup(claim.id());
+            if (stored != null) {
+                mine.complete(stored);
+                return replay(claim, stored, replayed);
+            }
+            stored = runOnce(claim, create);
+            completed.put(claim.id(), stored);
+            mine.complete(stored);
+            first.increment();
+            return stored.response();
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(claim.id(), mine);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Claim claim, BookingResponse response) {
+        repository.save(new IdempotencyRecord(claim.id(), claim.ownerEmail(), claim.requestHash(), write(response)));
+    }
+
+    @Scheduled(initialDelayString = "${rental.idempotency.purge-interval:1h}",
+            fixedDelayString = "${rental.idempotency.purge-interval:1h}")
+    public void purge() {
+        Integer removed = transactionTemplate.execute(status -> repository.deleteCreatedBefore(cutoff()));
+        if (removed != null && removed > 0) {
+            log.debug("Purged {} expired idempotency records", removed);
+        }
+    }
+
+    private Stored runOnce(Claim claim, Function<Claim, BookingResponse> create) {
+        try {
+            return created(claim, create);
+        } catch (DataIntegrityViolationException ex) {
+            // Another instance committed the same key first and our booking rolled back; answer with its result.
+            Stored theirs = lookup(claim.id());
+            if (theirs != null) {
+                return theirs;
+            }
+            // Or the key's expired record has not been purged yet: drop it and book once more.
+            Integer expired = transactionTemplate.execute(status -> repository.deleteExpired(claim.id(), cutoff()));
+            if (expired == null || expired == 0) {
+                throw ex;
+            }
+            return created(claim, create);
+        }
+    }
+
+    private static Stored created(Claim claim, Function<Claim, BookingResponse> create) {
+        BookingResponse response = create.apply(claim);
+        return new Stored(claim.requestHash(), response, LocalDateTime.now());
+    }
+
+    private Stored lookup(String id) {
+        Stored cached = completed.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        Stored stored = transactionTemplate.execute(status -> repository.findCreatedAfter(id, cutoff())
+                .map(record -> new Stored(record.getRequestHash(), read(record.getResponse()), record.getCreatedAt()))
+                .orElse(null));
+        if (stored != null) {
+            completed.put(id, stored);
+        }
+        return stored;
+    }
+
+    // Records created at or before this have expired.
+    private LocalDateTime cutoff() {
+        return LocalDateTime.now().minus(ttl);
+    }
+
+    private Duration remaining(Stored stored) {
+        Duration left = Duration.between(LocalDateTime.now(), stored.createdAt().plus(ttl));
+        return left.isNegative() ? Duration.ZERO : left;
+    }
+
+    private BookingResponse replay(Claim claim, Stored stored, Counter outcome) {
+        if (!stored.requestHash().equals(claim.requestHash())) {
+            mismatched.increment();
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used with a different request");
+        }
+        outcome.increment();
+        return stored.response();
+    }
+
+    private static Stored await(CompletableFuture<Stored> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private static Claim claim(String ownerEmail, String key, BookingRequest request) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = sha256(request.getPropertyId() + "|" + request.getCheckInDate() + "|" + request.getCheckOutDate());
+        return new Claim(sha256(ownerEmail + "\n" + key), ownerEmail, requestHash);
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private String write(BookingResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize booking " + response.getId(), ex);
+        }
+    }
+
+    private BookingResponse read(String json) {
+        try {
+            return objectMapper.readValue(json, BookingResponse.class);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** Identifies one caller's key and the request it was first used with. */
+    public record Claim(String id, String ownerEmail, String requestHash) {
+    }
+
+    private record Stored(String requestHash, BookingResponse response, LocalDateTime createdAt) {
+    }
+}
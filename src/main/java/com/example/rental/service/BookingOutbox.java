@@ -0,0 +1,46 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.BookingResponse;
+import com.example.rental.model.OutboxEvent;
+import com.example.rental.repo.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Records booking events in the outbox table. Must run inside the transaction that
+ * saves the booking, so the event exists exactly when the change does;
+ * {@link BookingOutboxRelay} delivers it later.
+ */
+@Component
+public class BookingOutbox {
+    private final OutboxEventRepository repository;
+    private final ObjectMapper objectMapper;
+
+    public BookingOutbox(OutboxEventRepository repository, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(OutboxEvent.Type type, BookingResponse booking) {
+        repository.save(toEvent(type, booking));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(OutboxEvent.Type type, List<BookingResponse> bookings) {
+        repository.saveAll(bookings.stream().map(booking -> toEvent(type, booking)).toList());
+    }
+
+    private OutboxEvent toEvent(OutboxEvent.Type type, BookingResponse booking) {
+        try {
+            return new OutboxEvent(type, booking.getId(), objectMapper.writeValueAsString(booking));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize booking " + booking.getId(), ex);
+        }
+    }
+}
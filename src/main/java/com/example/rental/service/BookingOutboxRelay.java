@@ -0,0 +1,149 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.BookingResponse;
+import com.example.rental.model.OutboxEvent;
+import com.example.rental.repo.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Drains the booking outbox: every {@code rental.outbox.poll-interval} it takes the
+ * oldest undelivered events in batches of {@code rental.outbox.batch-size} and
+ * publishes each as a {@link BookingEvent} to in-process listeners, then marks it
+ * processed in the same transaction that claimed it.
+ * <p>
+ * Delivery is at least once and in order per booking. Order is the database-assigned
+ * sequence number, not the pooled id, and status changes hold the booking's row lock,
+ * so a booking's events are numbered in commit order whichever instance wrote them.
+ * An event is only claimed once every earlier undelivered event of its booking is
+ * gone, so a relay on another instance that skipped a locked row cannot deliver what
+ * is queued behind it; events
+ * of different bookings may be delivered out of outbox order. If a listener throws,
+ * the batch stops at that event and it is retried on the next poll; after
+ * {@code rental.outbox.max-attempts} it is parked with its last error and skipped. Listeners run outside the relay's
+ * transaction so a failing one cannot roll back the bookkeeping. Delivered rows are
+ * purged after {@code rental.outbox.retention}.
+ */
+@Component
+public class BookingOutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(BookingOutboxRelay.class);
+
+    private final OutboxEventRepository repository;
+    private final ApplicationEventPublisher events;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate batchTransaction;
+    private final TransactionTemplate withoutTransaction;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retention;
+    private final Counter delivered;
+    private final Counter failed;
+    private final Counter parked;
+    private final Timer deliveryLag;
+
+    public BookingOutboxRelay(
+            OutboxEventRepository repository,
+            ApplicationEventPublisher events,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${rental.outbox.batch-size:100}") int batchSize,
+            @Value("${rental.outbox.max-attempts:10}") int maxAttempts,
+            @Value("${rental.outbox.retention:7d}") Duration retention
+    ) {
+        this.repository = repository;
+        this.events = events;
+        this.objectMapper = objectMapper;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.withoutTransaction = new TransactionTemplate(transactionManager);
+        this.withoutTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retention = retention;
+        this.delivered = Counter.builder("rental.outbox.events").tag("result", "delivered").register(meterRegistry);
+        this.failed = Counter.builder("rental.outbox.events").tag("result", "failed").register(meterRegistry);
+        this.parked = Counter.builder("rental.outbox.events").tag("result", "parked").register(meterRegistry);
+        this.deliveryLag = Timer.builder("rental.outbox.lag")
+                .description("Time from the booking change committing to its event being delivered")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${rental.outbox.poll-interval:500ms}",
+            fixedDelayString = "${rental.outbox.poll-interval:500ms}")
+    public void drain() {
+        while (relayBatch()) {
+            // Keep going while batches deliver: each one can unblock the next event of its bookings.
+        }
+    }
+
+    @Scheduled(initialDelayString = "${rental.outbox.purge-interval:1h}",
+            fixedDelayString = "${rental.outbox.purge-interval:1h}")
+    public void purge() {
+        Integer removed = batchTransaction.execute(
+                status -> repository.deleteProcessedBefore(LocalDateTime.now().minus(retention)));
+        if (removed != null && removed > 0) {
+            log.debug("Purged {} delivered outbox events", removed);
+        }
+    }
+
+    // True when the batch was not empty and every event in it was delivered, so more may be waiting.
+    private boolean relayBatch() {
+        Boolean more = batchTransaction.execute(status -> {
+            List<OutboxEvent> batch = repository.findPending(maxAttempts, PageRequest.of(0, batchSize));
+            for (OutboxEvent event : batch) {
+                try {
+                    withoutTransaction.executeWithoutResult(none -> events.publishEvent(toBookingEvent(event)));
+                } catch (RuntimeException ex) {
+                    recordFailure(event, ex);
+                    return false;
+                }
+                LocalDateTime now = LocalDateTime.now();
+                event.setProcessedAt(now);
+                delivered.increment();
+                deliveryLag.record(Duration.between(event.getCreatedAt(), now));
+            }
+            return !batch.isEmpty();
+        });
+        return Boolean.TRUE.equals(more);
+    }
+
+    private void recordFailure(OutboxEvent event, RuntimeException ex) {
+        event.recordFailure(ex);
+        if (event.getAttempts() >= maxAttempts) {
+            parked.increment();
+            log.error("Parking outbox event {} ({} for booking {}) after {} attempts",
+                    event.getId(), event.getType(), event.getAggregateId(), event.getAttempts(), ex);
+        } else {
+            failed.increment();
+            log.warn("Delivering outbox event {} failed (attempt {} of {}): {}",
+                    event.getId(), event.getAttempts(), maxAttempts, event.getLastError());
+        }
+    }
+
+    private BookingEvent toBookingEvent(OutboxEvent event) {
+        try {
+            BookingResponse booking = objectMapper.readValue(event.getPayload(), BookingResponse.class);
+            return new BookingEvent(event.getId(), event.getType(), booking, event.getCreatedAt());
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -1,118 +1,415 @@
 package com.example.rental.service;
 
+import com.example.rental.dto.BookingBatchResponse;
+import com.example.rental.dto.BookingBatchResult;
 import com.example.rental.dto.BookingRequest;
 import com.example.rental.dto.BookingResponse;
+import com.example.rental.dto.CursorResponse;
+import com.example.rental.dto.PropertyCalendarResponse;
 import com.example.rental.model.Booking;
 import com.example.rental.model.Booking.BookingStatus;
+import com.example.rental.model.OutboxEvent;
 import com.example.rental.model.Property;
 import com.example.rental.model.Property.ApprovalStatus;
 import com.example.rental.model.User;
 import com.example.rental.repo.BookingRepository;
 import com.example.rental.repo.PropertyRepository;
 import com.example.rental.repo.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class BookingService {
+    static final int MAX_BATCH_SIZE = 500;
+    static final int MAX_CALENDAR_DAYS = 366;
+    static final String NOT_APPROVED = "Property is not approved for booking";
+
     private final BookingRepository bookingRepository;
     private final PropertyRepository propertyRepository;
     private final UserRepository userRepository;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final BookingAdmission admission;
+    private final StreamingExporter exporter;
+    private final BookingOutbox outbox;
+    private final BookingIdempotency idempotency;
+    private final PricingEngine pricing;
+    private final MeterRegistry meterRegistry;
+    private final Timer indexOverlapTimer;
+    private final Timer databaseOverlapTimer;
 
     public BookingService(
             BookingRepository bookingRepository,
             PropertyRepository propertyRepository,
-            UserRepository userRepository
+            UserRepository userRepository,
+            BookingAvailabilityIndex availabilityIndex,
+            BookingAdmission admission,
+            StreamingExporter exporter,
+            BookingOutbox outbox,
+            BookingIdempotency idempotency,
+            PricingEngine pricing,
+            MeterRegistry meterRegistry
     ) {
         this.bookingRepository = bookingRepository;
         this.propertyRepository = propertyRepository;
         this.userRepository = userRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.admission = admission;
+        this.exporter = exporter;
+        this.outbox = outbox;
+        this.idempotency = idempotency;
+        this.pricing = pricing;
+        this.meterRegistry = meterRegistry;
+        this.indexOverlapTimer = Timer.builder("rental.booking.overlap").tag("source", "index").register(meterRegistry);
+        this.databaseOverlapTimer = Timer.builder("rental.booking.overlap").tag("source", "database").register(meterRegistry);
     }
 
+    /**
+     * Books a stay for the user. Latency is recorded as {@code rental.booking.create}
+     * tagged with the outcome: success, conflict, not_approved, invalid or not_found.
+     */
     public BookingResponse createBooking(BookingRequest request, String userEmail) {
-        if (request.getPropertyId() == null || request.getCheckInDate() == null || request.getCheckOutDate() == null) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Property and booking dates are required");
+        return timedCreate(request, userEmail, null);
+    }
+
+    /**
+     * Like {@link #createBooking(BookingRequest, String)}, but a repeat of the same
+     * {@code idempotencyKey} by the same user is answered with the first booking
+     * instead of running again. See {@link BookingIdempotency}.
+     */
+    public BookingResponse createBooking(BookingRequest request, String userEmail, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return createBooking(request, userEmail);
         }
-        if (!request.getCheckOutDate().isAfter(request.getCheckInDate())) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Checkout must be after check-in");
+        return idempotency.execute(userEmail, idempotencyKey, request,
+                claim -> timedCreate(request, userEmail, claim));
+    }
+
+    private BookingResponse timedCreate(BookingRequest request, String userEmail, BookingIdempotency.Claim claim) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return admitAndRespond(request, userEmail, claim);
+        } catch (ResponseStatusException ex) {
+            outcome = outcomeOf(ex);
+            throw ex;
+        } finally {
+            sample.stop(Timer.builder("rental.booking.create").tag("outcome", outcome).register(meterRegistry));
         }
-        if (request.getCheckInDate().isBefore(LocalDate.now())) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Check-in date cannot be in the past");
+    }
+
+    private BookingResponse admitAndRespond(BookingRequest request, String userEmail, BookingIdempotency.Claim claim) {
+        String invalid = invalidReason(request);
+        if (invalid != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, invalid);
+        }
+
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+
+        try {
+            Booking saved = admission.admit(
+                    request.getPropertyId(),
+                    () -> admitBooking(request, user, claim),
+                    this::publishToIndex
+            );
+            return toResponse(saved);
+        } catch (OptimisticLockingFailureException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Property already booked for selected dates");
         }
+    }
 
-        Property property = propertyRepository.findById(request.getPropertyId())
+    // Runs under the property's admission lock and inside its transaction.
+    private Booking admitBooking(BookingRequest request, User user, BookingIdempotency.Claim claim) {
+        Property property = propertyRepository.findByIdForBooking(request.getPropertyId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Property not found"));
         if (property.getApprovalStatus() != ApprovalStatus.APPROVED) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Property is not approved for booking");
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, NOT_APPROVED);
+        }
+
+        if (overlapExists(property, request.getCheckInDate(), request.getCheckOutDate())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Property already booked for selected dates");
         }
 
+        Booking saved = bookingRepository.save(newBooking(property, user, request));
+        BookingResponse response = toResponse(saved);
+        outbox.append(OutboxEvent.Type.BOOKING_CREATED, response);
+        if (claim != null) {
+            idempotency.record(claim, response);
+        }
+        return saved;
+    }
+
+    /**
+     * Validates and books a list of requests for one user in a single transaction.
+     * Requests are checked against existing stays and against each other; each one
+     * is accepted or rejected on its own, and the accepted rows are inserted as a
+     * JDBC batch.
+     */
+    public BookingBatchResponse createBookings(List<BookingRequest> requests, String userEmail) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one booking is required");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_BATCH_SIZE + " bookings per batch");
+        }
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
 
-        boolean overlapExists = bookingRepository.existsOverlappingBooking(
-                property.getId(),
-                request.getCheckInDate(),
-                request.getCheckOutDate(),
-                List.of(BookingStatus.REQUESTED, BookingStatus.CONFIRMED)
-        );
-        if (overlapExists) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Property already booked for selected dates");
+        String[] errors = new String[requests.size()];
+        Set<Long> propertyIds = new TreeSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest request = requests.get(i);
+            errors[i] = request == null ? "Property and booking dates are required" : invalidReason(request);
+            if (errors[i] == null) {
+                propertyIds.add(request.getPropertyId());
+            }
+        }
+
+        Booking[] accepted = new Booking[requests.size()];
+        if (!propertyIds.isEmpty()) {
+            try {
+                accepted = admission.admitAll(
+                        propertyIds,
+                        () -> admitBatch(requests, errors, propertyIds, user),
+                        saved -> Arrays.stream(saved)
+                                .filter(Objects::nonNull)
+                                .collect(Collectors.groupingBy(booking -> booking.getProperty().getId()))
+                                .values()
+                                .forEach(this::publishToIndex)
+                );
+            } catch (OptimisticLockingFailureException ex) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Property already booked for selected dates");
+            }
+        }
+
+        List<BookingBatchResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            results.add(accepted[i] != null
+                    ? BookingBatchResult.accepted(i, toResponse(accepted[i]))
+                    : BookingBatchResult.rejected(i, errors[i]));
+        }
+        return BookingBatchResponse.of(results);
+    }
+
+    // Runs under the admission locks of every property in the batch and inside one transaction.
+    private Booking[] admitBatch(List<BookingRequest> requests, String[] errors, Set<Long> propertyIds, User user) {
+        Map<Long, Property> properties = propertyRepository.findAllByIdForBooking(propertyIds).stream()
+                .collect(Collectors.toMap(Property::getId, Function.identity()));
+        pricing.preload(properties.values());
+        // One query for the whole batch rather than a versioned index lookup per property.
+        Map<Long, List<Booking>> existing = staysIntersecting(requests, errors);
+        Map<Long, List<BookingRequest>> acceptedByProperty = new HashMap<>();
+
+        Booking[] accepted = new Booking[requests.size()];
+        List<Booking> toSave = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            BookingRequest request = requests.get(i);
+            Property property = properties.get(request.getPropertyId());
+            if (property == null) {
+                errors[i] = "Property not found";
+            } else if (property.getApprovalStatus() != ApprovalStatus.APPROVED) {
+                errors[i] = NOT_APPROVED;
+            } else if (batchOverlapExists(request, existing, acceptedByProperty)) {
+                errors[i] = "Property already booked for selected dates";
+            } else {
+                acceptedByProperty.computeIfAbsent(property.getId(), id -> new ArrayList<>()).add(request);
+                accepted[i] = newBooking(property, user, request);
+                toSave.add(accepted[i]);
+            }
+        }
+        bookingRepository.saveAll(toSave);
+        outbox.appendAll(OutboxEvent.Type.BOOKING_CREATED, toSave.stream().map(this::toResponse).toList());
+        return accepted;
+    }
+
+    // One query for every active stay the batch could collide with, grouped by property.
+    private Map<Long, List<Booking>> staysIntersecting(List<BookingRequest> requests, String[] errors) {
+        List<BookingRequest> valid = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (errors[i] == null) {
+                valid.add(requests.get(i));
+            }
         }
+        LocalDate from = valid.stream().map(BookingRequest::getCheckInDate).min(LocalDate::compareTo).orElseThrow();
+        LocalDate to = valid.stream().map(BookingRequest::getCheckOutDate).max(LocalDate::compareTo).orElseThrow();
+        Set<Long> propertyIds = valid.stream().map(BookingRequest::getPropertyId).collect(Collectors.toSet());
+        return bookingRepository.findStaysIntersecting(propertyIds, from, to, BookingAvailabilityIndex.ACTIVE_STATUSES)
+                .stream()
+                .collect(Collectors.groupingBy(booking -> booking.getProperty().getId()));
+    }
+
+    private boolean batchOverlapExists(
+            BookingRequest request,
+            Map<Long, List<Booking>> existing,
+            Map<Long, List<BookingRequest>> acceptedByProperty
+    ) {
+        LocalDate checkIn = request.getCheckInDate();
+        LocalDate checkOut = request.getCheckOutDate();
+        Long propertyId = request.getPropertyId();
+        for (Booking stay : existing.getOrDefault(propertyId, List.of())) {
+            if (stay.getCheckInDate().isBefore(checkOut) && stay.getCheckOutDate().isAfter(checkIn)) {
+                return true;
+            }
+        }
+        for (BookingRequest other : acceptedByProperty.getOrDefault(propertyId, List.of())) {
+            if (other.getCheckInDate().isBefore(checkOut) && other.getCheckOutDate().isAfter(checkIn)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        long stayDays = ChronoUnit.DAYS.between(request.getCheckInDate(), request.getCheckOutDate());
+    private Booking newBooking(Property property, User user, BookingRequest request) {
         Booking booking = new Booking();
         booking.setProperty(property);
         booking.setUser(user);
         booking.setCheckInDate(request.getCheckInDate());
         booking.setCheckOutDate(request.getCheckOutDate());
-        booking.setTotalAmount(stayDays * property.getPrice());
+        booking.setTotalAmount(pricing.totalFor(property, request.getCheckInDate(), request.getCheckOutDate()));
         booking.setStatus(BookingStatus.REQUESTED);
+        return booking;
+    }
 
-        return toResponse(bookingRepository.save(booking));
+    private static String invalidReason(BookingRequest request) {
+        if (request.getPropertyId() == null || request.getCheckInDate() == null || request.getCheckOutDate() == null) {
+            return "Property and booking dates are required";
+        }
+        if (!request.getCheckOutDate().isAfter(request.getCheckInDate())) {
+            return "Checkout must be after check-in";
+        }
+        if (request.getCheckInDate().isBefore(LocalDate.now())) {
+            return "Check-in date cannot be in the past";
+        }
+        return null;
     }
 
+    @Transactional(readOnly = true)
     public List<BookingResponse> getMyBookings(String userEmail) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-        return bookingRepository.findByUserIdOrderByCreatedAtDesc(user.getId())
-                .stream()
-                .map(this::toResponse)
-                .toList();
+        return bookingRepository.findResponsesByUserId(user.getId());
     }
 
+    @Transactional(readOnly = true)
     public List<BookingResponse> getAllBookingsForAdmin() {
-        return bookingRepository.findAllByOrderByCreatedAtDesc()
-                .stream()
-                .map(this::toResponse)
-                .toList();
+        return bookingRepository.findAllResponses();
     }
 
+    @Transactional(readOnly = true)
     public List<BookingResponse> getHostBookings(String hostUserEmail) {
         User host = userRepository.findByEmail(hostUserEmail)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-        return bookingRepository.findByPropertyCreatedByIdOrderByCreatedAtDesc(host.getId())
-                .stream()
-                .map(this::toResponse)
-                .toList();
+        return bookingRepository.findResponsesByHostId(host.getId());
+    }
+
+    @Transactional(readOnly = true)
+    public CursorResponse<BookingResponse> getMyBookingsWindow(String userEmail, String cursor, int size) {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return toWindow(bookingRepository.findUserWindow(
+                user.getId(), cursorCreatedAt(after), cursorId(after), windowOf(size)
+        ));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorResponse<BookingResponse> getHostBookingsWindow(String hostUserEmail, String cursor, int size) {
+        User host = userRepository.findByEmail(hostUserEmail)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return toWindow(bookingRepository.findHostWindow(
+                host.getId(), cursorCreatedAt(after), cursorId(after), windowOf(size)
+        ));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorResponse<BookingResponse> getAllBookingsForAdminWindow(String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        return toWindow(bookingRepository.findAllWindow(cursorCreatedAt(after), cursorId(after), windowOf(size)));
+    }
+
+    public void exportAllBookingsForAdmin(ExportFormat format, OutputStream out) throws IOException {
+        exporter.export(bookingRepository::streamAllForExport, format, out);
     }
 
+    /**
+     * Booked nights of a property over [from, to), defaulting to one month from
+     * today. Answered from {@link BookingAvailabilityIndex} as of the property's
+     * version in the database, which every booking and cancellation bumps on any
+     * instance, and tagged with that version.
+     */
+    public OccupancyCalendar propertyCalendar(Long propertyId, LocalDate from, LocalDate to) {
+        LocalDate start = from == null ? LocalDate.now() : from;
+        LocalDate end = to == null ? start.plusMonths(1) : to;
+        if (!end.isAfter(start)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to must be after from");
+        }
+        if (ChronoUnit.DAYS.between(start, end) > MAX_CALENDAR_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Calendar range cannot exceed " + MAX_CALENDAR_DAYS + " days");
+        }
+        long version = propertyRepository.findVersionById(propertyId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Property not found"));
+
+        BookingAvailabilityIndex.Occupancy occupancy = availabilityIndex.occupancy(propertyId, version, start, end);
+        // The resolved window is part of the tag: a default window moves with the date.
+        return new OccupancyCalendar(
+                new PropertyCalendarResponse(propertyId, start, end, occupancy.booked()),
+                "\"" + propertyId + "-" + occupancy.version() + "-" + start + "-" + end + "\""
+        );
+    }
+
+    /** A property calendar and its ETag. */
+    public record OccupancyCalendar(PropertyCalendarResponse body, String etag) {
+    }
+
+    @Transactional
     public BookingResponse confirmBooking(Long bookingId) {
-        Booking booking = bookingRepository.findById(bookingId)
+        Booking booking = bookingRepository.findByIdForUpdate(bookingId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Booking not found"));
         if (booking.getStatus() == BookingStatus.CANCELLED) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cancelled booking cannot be confirmed");
         }
+        // Confirming keeps the nights booked, so neither the index nor the property version changes.
         booking.setStatus(BookingStatus.CONFIRMED);
-        return toResponse(bookingRepository.save(booking));
+        Booking saved = bookingRepository.save(booking);
+        BookingResponse response = toResponse(saved);
+        outbox.append(OutboxEvent.Type.BOOKING_CONFIRMED, response);
+        return response;
     }
 
+    @Transactional
     public BookingResponse cancelBooking(Long bookingId, String userEmail, boolean isAdmin) {
-        Booking booking = bookingRepository.findById(bookingId)
+        Booking booking = bookingRepository.findByIdForUpdate(bookingId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Booking not found"));
 
         boolean isOwner = booking.getUser().getEmail().equalsIgnoreCase(userEmail);
@@ -123,8 +420,86 @@ public class BookingService {
             return toResponse(booking);
         }
 
+        Property property = propertyRepository.findByIdForCancellation(booking.getProperty().getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Property not found"));
         booking.setStatus(BookingStatus.CANCELLED);
-        return toResponse(bookingRepository.save(booking));
+        Booking saved = bookingRepository.save(booking);
+        long version = BookingAvailabilityIndex.versionOf(property);
+        afterCommit(() -> availabilityIndex.apply(property.getId(), version, List.of(saved)));
+        BookingResponse response = toResponse(saved);
+        outbox.append(OutboxEvent.Type.BOOKING_CANCELLED, response);
+        return response;
+    }
+
+    // Bookings of one property admitted together; the property's version was bumped by their commit.
+    private void publishToIndex(Booking saved) {
+        publishToIndex(List.of(saved));
+    }
+
+    private void publishToIndex(List<Booking> saved) {
+        Property property = saved.get(0).getProperty();
+        availabilityIndex.apply(property.getId(), BookingAvailabilityIndex.versionOf(property), saved);
+    }
+
+    // The availability index only reflects committed state; outside a transaction the update runs straight away.
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    private Pageable windowOf(int size) {
+        return PageRequest.of(0, PageSizes.bounded(size));
+    }
+
+    private LocalDateTime cursorCreatedAt(KeysetCursor cursor) {
+        return cursor == null ? null : cursor.sortValueAs(LocalDateTime::parse);
+    }
+
+    private Long cursorId(KeysetCursor cursor) {
+        return cursor == null ? null : cursor.id();
+    }
+
+    private CursorResponse<BookingResponse> toWindow(Slice<BookingResponse> slice) {
+        return CursorResponse.from(
+                slice,
+                booking -> KeysetCursor.of(booking.getCreatedAt(), booking.getId()).encode()
+        );
+    }
+
+    // Exact at the version the property was loaded with: the index reloads the stays first if
+    // another instance changed them since, and a booking or cancellation committed after that
+    // version was read makes this one fail its version check. The COUNT query only answers
+    // until the index has been warmed.
+    private boolean overlapExists(Property property, LocalDate checkInDate, LocalDate checkOutDate) {
+        if (availabilityIndex.isReady()) {
+            long version = BookingAvailabilityIndex.versionOf(property);
+            return indexOverlapTimer.record(() ->
+                    availabilityIndex.hasOverlap(property.getId(), version, checkInDate, checkOutDate));
+        }
+        return databaseOverlapTimer.record(() -> bookingRepository.existsOverlappingBooking(
+                property.getId(),
+                checkInDate,
+                checkOutDate,
+                BookingAvailabilityIndex.ACTIVE_STATUSES
+        ));
+    }
+
+    private static String outcomeOf(ResponseStatusException ex) {
+        if (ex.getStatusCode() == HttpStatus.CONFLICT) {
+            return "conflict";
+        }
+        if (ex.getStatusCode() == HttpStatus.NOT_FOUND) {
+            return "not_found";
+        }
+        return NOT_APPROVED.equals(ex.getReason()) ? "not_approved" : "invalid";
     }
 
     private BookingResponse toResponse(Booking booking) {
@@ -0,0 +1,47 @@
+package com.example.rental.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Position of the last row of a keyset window: its sort key and id, encoded as an
+ * opaque URL-safe token.
+ */
+record KeysetCursor(String sortValue, Long id) {
+    private static final char SEPARATOR = '\n';
+
+    static KeysetCursor of(Object sortValue, Long id) {
+        return new KeysetCursor(String.valueOf(sortValue), id);
+    }
+
+    /** Returns null for a missing cursor, i.e. the first window. */
+    static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(raw.substring(0, split), Long.parseLong(raw.substring(split + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    <T> T sortValueAs(Function<String, T> parser) {
+        try {
+            return parser.apply(sortValue);
+        } catch (RuntimeException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    String encode() {
+        String raw = sortValue + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
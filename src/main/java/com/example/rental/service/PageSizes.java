@@ -0,0 +1,23 @@
+package com.example.rental.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Bounds on the page and window sizes clients ask for. Sizes below one are
+ * rejected; larger ones are capped at {@value #MAX}, which also keeps the extra row
+ * a keyset window reads to detect a next window from overflowing.
+ */
+final class PageSizes {
+    static final int MAX = 100;
+
+    private PageSizes() {
+    }
+
+    static int bounded(int size) {
+        if (size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be at least 1");
+        }
+        return Math.min(size, MAX);
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.BookedRange;
+import com.example.rental.dto.PriceQuoteResponse;
+import com.example.rental.dto.PricingRuleRequest;
+import com.example.rental.dto.PricingRuleResponse;
+import com.example.rental.model.PricingRule;
+import com.example.rental.model.Property;
+import com.example.rental.repo.PricingRuleRepository;
+import com.example.rental.repo.PropertyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Prices stays from each property's {@link PricingRule}s. Rules are compiled into a
+ * {@link PricingPlan} per property, cached in memory, so quotes and bookings cost two
+ * array reads once a property is warm.
+ * <p>
+ * Plans are recompiled one property at a time: when its rules are replaced
+ * ({@link PricingRulesChangedEvent}), when the property changes
+ * ({@link PropertyChangedEvent}), and once a day as the rate table's horizon moves
+ * forward. When a plan with occupancy rules sees the property's stays in
+ * {@link BookingAvailabilityIndex} change, it is patched in place from the index
+ * instead, without reading the rules again. Occupancy is always read at the
+ * property's database version, so a quote and the booking that follows it see the
+ * same stays whichever instance answers them.
+ * <p>
+ * Search results are not priced: they show the base price, and a stay is priced
+ * through {@link #quote} or when it is booked.
+ */
+@Component
+public class PricingEngine {
+    static final int MAX_QUOTE_NIGHTS = 366;
+    static final int MAX_RULES = 100;
+    // Occupancy was not known when the plan was compiled; it is filled in once the index is warm.
+    private static final long UNKNOWN_OCCUPANCY = -2;
+
+    private final PricingRuleRepository ruleRepository;
+    private final PropertyRepository propertyRepository;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final ApplicationEventPublisher events;
+    private final int horizonDays;
+    private final Cache<Long, PricingPlan> plans;
+    // Bumped on every invalidation so a bulk load that raced with one does not cache what it read.
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Timer compileTimer;
+    private final Timer occupancyTimer;
+
+    public PricingEngine(
+            PricingRuleRepository ruleRepository,
+            PropertyRepository propertyRepository,
+            BookingAvailabilityIndex availabilityIndex,
+            ApplicationEventPublisher events,
+            MeterRegistry meterRegistry,
+            @Value("${rental.pricing.horizon-days:365}") int horizonDays,
+            @Value("${rental.pricing.cache-size:10000}") long cacheSize
+    ) {
+        this.ruleRepository = ruleRepository;
+        this.propertyRepository = propertyRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.events = events;
+        this.horizonDays = horizonDays;
+        this.plans = Caffeine.newBuilder().maximumSize(cacheSize).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, plans, "pricingPlans");
+        this.compileTimer = Timer.builder("rental.pricing.compile").tag("scope", "rules").register(meterRegistry);
+        this.occupancyTimer = Timer.builder("rental.pricing.compile").tag("scope", "occupancy").register(meterRegistry);
+    }
+
+    /**
+     * Amount charged for booking the property over [checkIn, checkOut), with occupancy
+     * as of the property's version as loaded.
+     */
+    public double totalFor(Property property, LocalDate checkIn, LocalDate checkOut) {
+        return planFor(property).quote(checkIn, checkOut).totalAmount();
+    }
+
+    /**
+     * Compiles the plans of the given properties that are not cached yet with one
+     * rules query, so a booking batch does not load them one property at a time.
+     */
+    public void preload(Collection<Property> properties) {
+        List<Property> missing = properties.stream()
+                .filter(property -> current(property.getId(), BookingAvailabilityIndex.versionOf(property)) == null)
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        long seen = invalidations.get();
+        Map<Long, List<PricingRule>> rulesById = ruleRepository
+                .findByPropertyIds(missing.stream().map(Property::getId).toList())
+                .stream()
+                .collect(Collectors.groupingBy(rule -> rule.getProperty().getId()));
+        for (Property property : missing) {
+            long version = BookingAvailabilityIndex.versionOf(property);
+            PricingPlan plan = compile(property.getId(), version, basePrice(property),
+                    rulesById.getOrDefault(property.getId(), List.of()));
+            cache(plan, seen, version);
+        }
+    }
+
+    public PriceQuoteResponse quote(Long propertyId, LocalDate checkIn, LocalDate checkOut) {
+        if (checkIn == null || checkOut == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "checkIn and checkOut are required");
+        }
+        if (!checkOut.isAfter(checkIn)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Checkout must be after check-in");
+        }
+        if (checkIn.isBefore(LocalDate.now())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Check-in date cannot be in the past");
+        }
+        if (ChronoUnit.DAYS.between(checkIn, checkOut) > MAX_QUOTE_NIGHTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A quote cannot exceed " + MAX_QUOTE_NIGHTS + " nights");
+        }
+        PricingPlan.Quote quote = quotePlan(propertyId).quote(checkIn, checkOut);
+        return new PriceQuoteResponse(propertyId, checkIn, checkOut, quote.nights(),
+                quote.subtotal(), quote.lengthOfStayMultiplier(), quote.totalAmount());
+    }
+
+    @Transactional(readOnly = true)
+    public List<PricingRuleResponse> rules(Long propertyId) {
+        if (!propertyRepository.existsById(propertyId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Property not found");
+        }
+        return ruleRepository.findByPropertyIds(List.of(propertyId)).stream().map(PricingRuleResponse::from).toList();
+    }
+
+    /** Replaces all of the property's rules. Hosts may only price their own properties. */
+    @Transactional
+    public List<PricingRuleResponse> replaceRules(
+            Long propertyId, List<PricingRuleRequest> requests, String userEmail, boolean isAdmin) {
+        Property property = propertyRepository.findById(propertyId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Property not found"));
+        boolean isOwner = property.getCreatedBy() != null && property.getCreatedBy().getEmail().equalsIgnoreCase(userEmail);
+        if (!isOwner && !isAdmin) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not allowed to price this property");
+        }
+        if (requests.size() > MAX_RULES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A property cannot have more than " + MAX_RULES + " pricing rules");
+        }
+        List<PricingRule> rules = new ArrayList<>(requests.size());
+        for (PricingRuleRequest request : requests) {
+            String invalid = invalidReason(request);
+            if (invalid != null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, invalid);
+            }
+            rules.add(toRule(property, request));
+        }
+
+        ruleRepository.deleteByPropertyId(propertyId);
+        List<PricingRule> saved = ruleRepository.saveAll(rules);
+        events.publishEvent(new PricingRulesChangedEvent(propertyId));
+        return saved.stream().map(PricingRuleResponse::from).toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRulesChanged(PricingRulesChangedEvent event) {
+        invalidate(List.of(event.propertyId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        invalidate(event.properties().stream().map(Property::getId).toList());
+    }
+
+    private void invalidate(Collection<Long> propertyIds) {
+        invalidations.incrementAndGet();
+        plans.invalidateAll(propertyIds);
+    }
+
+    // Occupancy plans are priced at the property's current version, as a booking made now would be, which
+    // costs one version read; plans without occupancy rules are used as cached.
+    private PricingPlan quotePlan(Long propertyId) {
+        PricingPlan cached = plans.getIfPresent(propertyId);
+        if (cached != null && cached.usesOccupancy()) {
+            long version = propertyRepository.findVersionById(propertyId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Property not found"));
+            PricingPlan plan = current(propertyId, version);
+            if (plan != null) {
+                return plan;
+            }
+        } else if (cached != null && cached.start().equals(LocalDate.now())) {
+            return cached;
+        }
+        Property property = propertyRepository.findById(propertyId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Property not found"));
+        return planFor(property);
+    }
+
+    private PricingPlan planFor(Property property) {
+        long version = BookingAvailabilityIndex.versionOf(property);
+        PricingPlan plan = current(property.getId(), version);
+        if (plan != null) {
+            return plan;
+        }
+        // Loaded and compiled outside the cache, so a slow rules query holds no map lock.
+        long seen = invalidations.get();
+        PricingPlan compiled = compile(property.getId(), version, basePrice(property),
+                ruleRepository.findByPropertyIds(List.of(property.getId())));
+        return cache(compiled, seen, version);
+    }
+
+    /**
+     * Caches a plan compiled from data read after {@code seen} was taken, unless a current
+     * plan is already cached or an invalidation happened since. The stamp is checked under
+     * the key's lock, and {@link #invalidate} bumps it before removing keys, so a plan built
+     * from rules read before an invalidation is never left behind by it.
+     */
+    private PricingPlan cache(PricingPlan compiled, long seen, long version) {
+        PricingPlan cached = plans.asMap().compute(compiled.propertyId(), (id, previous) -> {
+            if (isCurrent(previous, version)) {
+                return previous;
+            }
+            return invalidations.get() == seen ? compiled : previous;
+        });
+        return isCurrent(cached, version) ? cached : compiled;
+    }
+
+    // The cached plan if it is still current with the property at version, re-priced for occupancy if needed.
+    private PricingPlan current(Long propertyId, long version) {
+        PricingPlan plan = plans.getIfPresent(propertyId);
+        if (isCurrent(plan, version)) {
+            return plan;
+        }
+        boolean staleOccupancy = plan != null && plan.start().equals(LocalDate.now()) && plan.usesOccupancy();
+        return staleOccupancy ? withCurrentOccupancy(plan, version) : null;
+    }
+
+    // Only the occupancy multipliers depend on bookings, so the cached plan is re-priced from
+    // the index rather than recompiled. Not cached if the plan was invalidated meanwhile.
+    private PricingPlan withCurrentOccupancy(PricingPlan plan, long version) {
+        BookingAvailabilityIndex.Occupancy occupancy = availabilityIndex.occupancy(
+                plan.propertyId(), version, plan.start(), plan.start().plusDays(horizonDays));
+        PricingPlan patched = occupancyTimer.record(() -> plan.withOccupancy(occupancy.booked(), occupancy.revision()));
+        plans.asMap().replace(plan.propertyId(), plan, patched);
+        return patched;
+    }
+
+    // Occupancy plans are checked against the index's stays at version, which are reloaded first if behind.
+    private boolean isCurrent(PricingPlan plan, long version) {
+        if (plan == null || !plan.start().equals(LocalDate.now())) {
+            return false;
+        }
+        return !plan.usesOccupancy() || !availabilityIndex.isReady()
+                || plan.occupancyVersion() == availabilityIndex.revision(plan.propertyId(), version);
+    }
+
+    private PricingPlan compile(Long propertyId, long version, double basePrice, List<PricingRule> rules) {
+        return compileTimer.record(() -> {
+            LocalDate start = LocalDate.now();
+            List<BookedRange> booked = List.of();
+            long occupancyVersion = UNKNOWN_OCCUPANCY;
+            boolean usesOccupancy = rules.stream().anyMatch(rule -> rule.getType() == PricingRule.Type.OCCUPANCY);
+            if (usesOccupancy && availabilityIndex.isReady()) {
+                BookingAvailabilityIndex.Occupancy occupancy =
+                        availabilityIndex.occupancy(propertyId, version, start, start.plusDays(horizonDays));
+                booked = occupancy.booked();
+                occupancyVersion = occupancy.revision();
+            }
+            return PricingPlan.compile(propertyId, basePrice, rules, start, horizonDays, booked, occupancyVersion);
+        });
+    }
+
+    private static double basePrice(Property property) {
+        return property.getPrice() == null ? 0 : property.getPrice();
+    }
+
+    private static String invalidReason(PricingRuleRequest request) {
+        if (request.getType() == null) {
+            return "Pricing rule type is required";
+        }
+        if (request.getMultiplier() == null || request.getMultiplier() <= 0 || request.getMultiplier() > 10) {
+            return "Pricing rule multiplier must be greater than 0 and at most 10";
+        }
+        return switch (request.getType()) {
+            case SEASON -> request.getStartDate() == null || request.getEndDate() == null
+                    || request.getEndDate().isBefore(request.getStartDate())
+                    ? "Season rules need a startDate on or before their endDate" : null;
+            case LENGTH_OF_STAY -> request.getMinNights() == null || request.getMinNights() < 1
+                    || request.getMinNights() > MAX_QUOTE_NIGHTS
+                    ? "Length-of-stay rules need minNights between 1 and " + MAX_QUOTE_NIGHTS : null;
+            case OCCUPANCY -> request.getThreshold() == null || request.getThreshold() <= 0 || request.getThreshold() > 1
+                    ? "Occupancy rules need a threshold greater than 0 and at most 1" : null;
+            case WEEKEND -> null;
+        };
+    }
+
+    private static PricingRule toRule(Property property, PricingRuleRequest request) {
+        PricingRule rule = new PricingRule();
+        rule.setProperty(property);
+        rule.setType(request.getType());
+        rule.setMultiplier(request.getMultiplier());
+        switch (request.getType()) {
+            case SEASON -> {
+                rule.setStartDate(request.getStartDate());
+                rule.setEndDate(request.getEndDate());
+            }
+            case LENGTH_OF_STAY -> rule.setMinNights(request.getMinNights());
+            case OCCUPANCY -> rule.setThreshold(request.getThreshold());
+            case WEEKEND -> { }
+        }
+        return rule;
+    }
+}
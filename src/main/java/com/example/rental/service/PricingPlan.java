@@ -0,0 +1,262 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.BookedRange;
+import com.example.rental.model.PricingRule;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A property's pricing rules compiled against its base price. The nightly rates
+ * from {@code start} over the horizon are stored as prefix sums, so pricing a stay
+ * inside the table takes two array reads whatever its length. Stays reaching past
+ * the table are summed night by night. A property without nightly rules has no
+ * table and is priced as nights times the base price.
+ * <p>
+ * Immutable: {@link PricingEngine} compiles a new plan when the rules or the base
+ * price change. When only the property's bookings change, a plan with occupancy
+ * rules is copied by {@link #withOccupancy}, which re-prices just the months whose
+ * multiplier moved.
+ */
+final class PricingPlan {
+    static final long NO_OCCUPANCY = -1;
+
+    record Quote(long nights, double subtotal, double lengthOfStayMultiplier, double totalAmount) {
+    }
+
+    private final Long propertyId;
+    private final double basePrice;
+    private final LocalDate[] seasonStarts;
+    private final LocalDate[] seasonEnds;
+    private final double[] seasonMultipliers;
+    private final double weekendMultiplier;
+    // Sorted by threshold. Empty without occupancy rules.
+    private final List<PricingRule> occupancyRules;
+    private final Map<YearMonth, Double> occupancyMultipliers;
+    // Indexed by nights; stays longer than the array use its last entry. Null without rules.
+    private final double[] lengthOfStayMultipliers;
+    private final long occupancyVersion;
+    private final LocalDate start;
+    private final int horizonDays;
+    // prefix[i] is the sum of the nightly rates of the i nights from start. Null without nightly rules.
+    private final double[] prefix;
+
+    private PricingPlan(Long propertyId, double basePrice, List<PricingRule> rules, List<PricingRule> occupancyRules,
+                        Map<YearMonth, Double> occupancyMultipliers, long occupancyVersion, LocalDate start, int horizonDays) {
+        this.propertyId = propertyId;
+        this.basePrice = basePrice;
+        List<PricingRule> seasons = ofType(rules, PricingRule.Type.SEASON);
+        this.seasonStarts = seasons.stream().map(PricingRule::getStartDate).toArray(LocalDate[]::new);
+        this.seasonEnds = seasons.stream().map(PricingRule::getEndDate).toArray(LocalDate[]::new);
+        this.seasonMultipliers = seasons.stream().mapToDouble(PricingRule::getMultiplier).toArray();
+        this.weekendMultiplier = ofType(rules, PricingRule.Type.WEEKEND).stream()
+                .mapToDouble(PricingRule::getMultiplier)
+                .reduce(1.0, (a, b) -> a * b);
+        this.occupancyRules = occupancyRules;
+        this.occupancyMultipliers = occupancyMultipliers;
+        this.lengthOfStayMultipliers = lengthOfStayTable(ofType(rules, PricingRule.Type.LENGTH_OF_STAY));
+        this.occupancyVersion = occupancyVersion;
+        this.start = start;
+        this.horizonDays = horizonDays;
+        this.prefix = isNightly(occupancyMultipliers) ? rateTable(occupancyMultipliers) : null;
+    }
+
+    // Same rules, base price and start; only the occupancy multipliers and their rate table differ.
+    private PricingPlan(PricingPlan plan, Map<YearMonth, Double> occupancyMultipliers, long occupancyVersion,
+                        double[] prefix) {
+        this.propertyId = plan.propertyId;
+        this.basePrice = plan.basePrice;
+        this.seasonStarts = plan.seasonStarts;
+        this.seasonEnds = plan.seasonEnds;
+        this.seasonMultipliers = plan.seasonMultipliers;
+        this.weekendMultiplier = plan.weekendMultiplier;
+        this.occupancyRules = plan.occupancyRules;
+        this.occupancyMultipliers = occupancyMultipliers;
+        this.lengthOfStayMultipliers = plan.lengthOfStayMultipliers;
+        this.occupancyVersion = occupancyVersion;
+        this.start = plan.start;
+        this.horizonDays = plan.horizonDays;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Compiles the rules. {@code booked} are the property's booked runs within the
+     * horizon and {@code occupancyVersion} identifies them; both are only read when
+     * there are occupancy rules.
+     */
+    static PricingPlan compile(Long propertyId, double basePrice, List<PricingRule> rules, LocalDate start, int horizonDays,
+                               List<BookedRange> booked, long occupancyVersion) {
+        List<PricingRule> occupancy = ofType(rules, PricingRule.Type.OCCUPANCY).stream()
+                .sorted(Comparator.comparing(PricingRule::getThreshold))
+                .toList();
+        if (occupancy.isEmpty()) {
+            return new PricingPlan(propertyId, basePrice, rules, occupancy, Map.of(), NO_OCCUPANCY, start, horizonDays);
+        }
+        return new PricingPlan(propertyId, basePrice, rules, occupancy, occupancyMultipliers(occupancy, booked),
+                occupancyVersion, start, horizonDays);
+    }
+
+    /**
+     * This plan priced for the property's new booked runs, identified by
+     * {@code occupancyVersion}. Nights are re-priced only in months whose occupancy
+     * multiplier changed; later running totals are shifted by the difference, so a
+     * booking that crosses no threshold reuses the rate table as it is.
+     */
+    PricingPlan withOccupancy(List<BookedRange> booked, long occupancyVersion) {
+        Map<YearMonth, Double> multipliers = occupancyMultipliers(occupancyRules, booked);
+        if (multipliers.equals(occupancyMultipliers)) {
+            return new PricingPlan(this, occupancyMultipliers, occupancyVersion, prefix);
+        }
+        if (prefix == null) {
+            return new PricingPlan(this, multipliers, occupancyVersion,
+                    isNightly(multipliers) ? rateTable(multipliers) : null);
+        }
+        double[] patched = new double[prefix.length];
+        double shift = 0;
+        int night = 0;
+        while (night < horizonDays) {
+            YearMonth month = YearMonth.from(start.plusDays(night));
+            int monthEnd = (int) Math.min(horizonDays, ChronoUnit.DAYS.between(start, month.plusMonths(1).atDay(1)));
+            boolean changed = !Objects.equals(occupancyMultipliers.get(month), multipliers.get(month));
+            for (; night < monthEnd; night++) {
+                if (changed) {
+                    shift += nightlyRate(start.plusDays(night), multipliers) - (prefix[night + 1] - prefix[night]);
+                }
+                patched[night + 1] = prefix[night + 1] + shift;
+            }
+        }
+        return new PricingPlan(this, multipliers, occupancyVersion, patched);
+    }
+
+    Quote quote(LocalDate checkIn, LocalDate checkOut) {
+        long nights = ChronoUnit.DAYS.between(checkIn, checkOut);
+        double subtotal = subtotal(checkIn, checkOut, nights);
+        double lengthOfStay = lengthOfStayMultiplier(nights);
+        return new Quote(nights, roundToCents(subtotal), lengthOfStay, roundToCents(subtotal * lengthOfStay));
+    }
+
+    Long propertyId() {
+        return propertyId;
+    }
+
+    boolean usesOccupancy() {
+        return occupancyVersion != NO_OCCUPANCY;
+    }
+
+    long occupancyVersion() {
+        return occupancyVersion;
+    }
+
+    LocalDate start() {
+        return start;
+    }
+
+    private double subtotal(LocalDate checkIn, LocalDate checkOut, long nights) {
+        if (prefix == null) {
+            return nights * basePrice;
+        }
+        long from = ChronoUnit.DAYS.between(start, checkIn);
+        long to = from + nights;
+        if (from >= 0 && to < prefix.length) {
+            return prefix[(int) to] - prefix[(int) from];
+        }
+        double sum = 0;
+        for (LocalDate night = checkIn; night.isBefore(checkOut); night = night.plusDays(1)) {
+            sum += nightlyRate(night);
+        }
+        return sum;
+    }
+
+    private boolean isNightly(Map<YearMonth, Double> occupancy) {
+        return seasonStarts.length > 0 || weekendMultiplier != 1.0 || !occupancy.isEmpty();
+    }
+
+    private double[] rateTable(Map<YearMonth, Double> occupancy) {
+        double[] table = new double[horizonDays + 1];
+        for (int i = 0; i < horizonDays; i++) {
+            table[i + 1] = table[i] + nightlyRate(start.plusDays(i), occupancy);
+        }
+        return table;
+    }
+
+    private double nightlyRate(LocalDate night) {
+        return nightlyRate(night, occupancyMultipliers);
+    }
+
+    private double nightlyRate(LocalDate night, Map<YearMonth, Double> occupancy) {
+        double rate = basePrice;
+        for (int i = 0; i < seasonStarts.length; i++) {
+            if (!night.isBefore(seasonStarts[i]) && !night.isAfter(seasonEnds[i])) {
+                rate *= seasonMultipliers[i];
+            }
+        }
+        DayOfWeek day = night.getDayOfWeek();
+        if (day == DayOfWeek.FRIDAY || day == DayOfWeek.SATURDAY) {
+            rate *= weekendMultiplier;
+        }
+        if (!occupancy.isEmpty()) {
+            rate *= occupancy.getOrDefault(YearMonth.from(night), 1.0);
+        }
+        return rate;
+    }
+
+    private double lengthOfStayMultiplier(long nights) {
+        if (lengthOfStayMultipliers == null) {
+            return 1.0;
+        }
+        int index = (int) Math.min(nights, lengthOfStayMultipliers.length - 1);
+        return lengthOfStayMultipliers[index];
+    }
+
+    private static double[] lengthOfStayTable(List<PricingRule> rules) {
+        if (rules.isEmpty()) {
+            return null;
+        }
+        List<PricingRule> byMinNights = rules.stream().sorted(Comparator.comparing(PricingRule::getMinNights)).toList();
+        double[] table = new double[byMinNights.get(byMinNights.size() - 1).getMinNights() + 1];
+        double multiplier = 1.0;
+        int next = 0;
+        for (int nights = 0; nights < table.length; nights++) {
+            while (next < byMinNights.size() && byMinNights.get(next).getMinNights() <= nights) {
+                multiplier = byMinNights.get(next++).getMultiplier();
+            }
+            table[nights] = multiplier;
+        }
+        return table;
+    }
+
+    // Per month, the multiplier of the highest threshold its booked share reaches. Rules are sorted by threshold.
+    private static Map<YearMonth, Double> occupancyMultipliers(List<PricingRule> byThreshold, List<BookedRange> booked) {
+        Map<YearMonth, Integer> bookedNights = new HashMap<>();
+        for (BookedRange range : booked) {
+            for (LocalDate night = range.getFrom(); night.isBefore(range.getTo()); night = night.plusDays(1)) {
+                bookedNights.merge(YearMonth.from(night), 1, Integer::sum);
+            }
+        }
+        Map<YearMonth, Double> multipliers = new HashMap<>();
+        bookedNights.forEach((month, nights) -> {
+            double share = (double) nights / month.lengthOfMonth();
+            for (PricingRule rule : byThreshold) {
+                if (share >= rule.getThreshold()) {
+                    multipliers.put(month, rule.getMultiplier());
+                }
+            }
+        });
+        return multipliers;
+    }
+
+    private static List<PricingRule> ofType(List<PricingRule> rules, PricingRule.Type type) {
+        return rules.stream().filter(rule -> rule.getType() == type).toList();
+    }
+
+    private static double roundToCents(double amount) {
+        return Math.round(amount * 100) / 100.0;
+    }
+}
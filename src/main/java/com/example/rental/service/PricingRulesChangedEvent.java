@@ -0,0 +1,8 @@
+package com.example.rental.service;
+
+/**
+ * Published by {@link PricingEngine} after a property's pricing rules are replaced,
+ * so only that property's compiled plan is dropped.
+ */
+public record PricingRulesChangedEvent(Long propertyId) {
+}
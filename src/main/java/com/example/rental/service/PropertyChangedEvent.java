@@ -0,0 +1,17 @@
+package com.example.rental.service;
+
+import com.example.rental.model.Property;
+
+import java.util.List;
+
+/**
+ * Published by {@link PropertyService} after properties are created, approved or
+ * rejected, carrying their post-change state. In-memory views of the listings
+ * ({@link PropertySearchIndex}, {@link PropertyListingsCache}) subscribe to it
+ * instead of being called directly; bulk moderation sends one event for the whole set.
+ */
+public record PropertyChangedEvent(List<Property> properties) {
+    public PropertyChangedEvent(Property property) {
+        this(List.of(property));
+    }
+}
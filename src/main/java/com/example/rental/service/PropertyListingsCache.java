@@ -0,0 +1,79 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.PropertyResponse;
+import com.example.rental.model.Property.ApprovalStatus;
+import com.example.rental.repo.PropertyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Read-through cache of the public listing endpoints, held as ready-to-send JSON
+ * bytes with a content ETag.
+ * <p>
+ * Entries are built on first request and dropped whenever a
+ * {@link PropertyChangedEvent} arrives, after the publishing transaction commits
+ * when there is one. Every key is invalidated by name, because only per-key
+ * invalidation waits for an in-flight load of that key; a bulk clear could let a
+ * rebuild that read the rows before the change store its bytes afterwards. Entries
+ * also expire after {@link #MAX_AGE} as a backstop. Hit and miss counts are
+ * published as {@code cache.gets{cache=propertyListings}}.
+ */
+@Component
+public class PropertyListingsCache {
+    public enum Listing { APPROVED, AVAILABLE }
+
+    /** Serialized listing body and its quoted strong ETag. */
+    public record Snapshot(byte[] body, String etag) {
+    }
+
+    static final Duration MAX_AGE = Duration.ofMinutes(1);
+
+    private final PropertyRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Cache<Listing, Snapshot> snapshots = Caffeine.newBuilder()
+            .expireAfterWrite(MAX_AGE)
+            .recordStats()
+            .build();
+
+    public PropertyListingsCache(PropertyRepository repository, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "propertyListings");
+    }
+
+    public Snapshot get(Listing listing) {
+        return snapshots.get(listing, this::load);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        snapshots.invalidateAll(EnumSet.allOf(Listing.class));
+    }
+
+    // Runs outside a read-only transaction on purpose: with read replicas it reads the primary,
+    // so a rebuild right after an invalidation cannot cache what a lagging replica still shows.
+    private Snapshot load(Listing listing) {
+        List<PropertyResponse> properties = switch (listing) {
+            case APPROVED -> repository.findResponsesByApprovalStatus(ApprovalStatus.APPROVED);
+            case AVAILABLE -> repository.findAvailableResponses(ApprovalStatus.APPROVED);
+        };
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(properties);
+            return new Snapshot(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
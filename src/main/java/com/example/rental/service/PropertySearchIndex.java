@@ -0,0 +1,434 @@
+package com.example.rental.service;
+
+import com.example.rental.model.Property;
+import com.example.rental.model.Property.ApprovalStatus;
+import com.example.rental.repo.PropertyRepository;
+import com.example.rental.repo.PropertySearchRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * In-process trigram index over the name and location of approved properties.
+ * <p>
+ * A query is answered by intersecting the posting lists of its trigrams and then
+ * confirming the substring match, which gives the same results as the
+ * {@code LIKE '%query%'} filter in {@link PropertyRepository#searchApproved}
+ * without scanning the table. Queries shorter than a trigram are looked up in
+ * the posting list of the query itself, since every document is also indexed by
+ * its one- and two-character substrings. Price and availability are kept on each
+ * document so all filters and sorting happen in memory, and only the hits up to
+ * the end of the requested page are kept in order; callers hydrate the returned
+ * page of ids with one batch fetch.
+ * <p>
+ * Warm-up reads approved properties in pages of narrow rows rather than entities.
+ * Changes made on this instance arrive as {@link PropertyChangedEvent}s. Every
+ * {@code rental.search-index.refresh-interval} the index also reloads the
+ * properties whose {@code updated_at} moved since its previous pass, which picks
+ * up changes made by other instances.
+ */
+@Component
+public class PropertySearchIndex {
+    public static final String RELEVANCE = "relevance";
+
+    private static final int GRAM = 3;
+    // Rows per warm-up or refresh query.
+    private static final int PAGE_SIZE = 1000;
+
+    private final PropertyRepository repository;
+    private final Duration lookback;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private volatile boolean ready;
+    // Start of the last warm-up or refresh pass; only the scheduler thread moves it after warm-up.
+    private volatile LocalDateTime changedSince;
+
+    public PropertySearchIndex(
+            PropertyRepository repository,
+            @Value("${rental.search-index.refresh-lookback:1m}") Duration lookback
+    ) {
+        this.repository = repository;
+        this.lookback = lookback;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        forEachPage(last -> repository.findSearchRowsByApprovalStatus(
+                ApprovalStatus.APPROVED, last == null ? 0L : last.id(), Limit.of(PAGE_SIZE)));
+        changedSince = startedAt;
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPropertyChanged(PropertyChangedEvent event) {
+        event.properties().forEach(this::upsert);
+    }
+
+    /**
+     * Reloads the properties edited or moderated since the previous pass, less
+     * {@code rental.search-index.refresh-lookback} so that transactions still
+     * committing then, and clocks that run slightly apart, are not missed.
+     * Bookings do not move {@code updated_at}, so booked properties are not reloaded.
+     */
+    @Scheduled(initialDelayString = "${rental.search-index.refresh-interval:30s}",
+            fixedDelayString = "${rental.search-index.refresh-interval:30s}")
+    public void refresh() {
+        if (!ready) {
+            return;
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime since = changedSince.minus(lookback);
+        forEachPage(last -> last == null
+                ? repository.findSearchRowsUpdatedSince(since, 0L, Limit.of(PAGE_SIZE))
+                : repository.findSearchRowsUpdatedSince(last.updatedAt(), last.id(), Limit.of(PAGE_SIZE)));
+        changedSince = startedAt;
+    }
+
+    public void upsert(Property property) {
+        upsert(new PropertySearchRow(property.getId(), property.getVersion(), property.getName(),
+                property.getLocation(), property.getPrice(), property.isAvailable(), property.getApprovalStatus(),
+                property.getUpdatedAt()));
+    }
+
+    /**
+     * Indexes the property if it is approved, otherwise removes it. A copy older
+     * than the indexed one, e.g. read by a refresh before a local change committed,
+     * is ignored.
+     */
+    public void upsert(PropertySearchRow row) {
+        if (row.id() == null) {
+            return;
+        }
+        Document document = row.approvalStatus() == ApprovalStatus.APPROVED ? new Document(row) : null;
+        lock.writeLock().lock();
+        try {
+            Document previous = documents.get(row.id());
+            if (previous != null && isOlder(row.version(), previous.version)) {
+                return;
+            }
+            removeLocked(row.id());
+            if (document != null) {
+                documents.put(document.id, document);
+                for (String gram : document.grams()) {
+                    postings.computeIfAbsent(gram, key -> new HashSet<>()).add(document.id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long propertyId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(propertyId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the requested page of matching property ids. Sorting by
+     * {@link #RELEVANCE} ranks name matches above location matches and exact or
+     * prefix matches above plain substring matches.
+     */
+    public Page<Long> search(
+            String query,
+            Double minPrice,
+            Double maxPrice,
+            Boolean available,
+            Pageable pageable
+    ) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        Sort.Order order = primaryOrder(pageable.getSort());
+        int from = (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE - pageable.getPageSize());
+        TopHits top = topHits(needle, minPrice, maxPrice, available, order, null, from + pageable.getPageSize());
+        List<Hit> hits = top.sorted();
+        List<Long> ids = hits.subList(Math.min(from, hits.size()), hits.size()).stream().map(Hit::id).toList();
+        return new PageImpl<>(ids, pageable, top.total);
+    }
+
+    /**
+     * Keyset variant of {@link #search}: returns up to {@code size} hits ordered by
+     * (sort key, id) that come strictly after {@code after}, or from the start when
+     * {@code after} is null.
+     */
+    public Slice<Hit> searchAfter(
+            String query,
+            Double minPrice,
+            Double maxPrice,
+            Boolean available,
+            Sort sort,
+            KeysetCursor after,
+            int size
+    ) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        Sort.Order order = primaryOrder(sort);
+        Hit probe = after == null
+                ? null
+                : new Hit(after.id(), after.sortValueAs(raw -> parseKey(order.getProperty(), raw)));
+        List<Hit> hits = topHits(needle, minPrice, maxPrice, available, order, probe, size + 1).sorted();
+        boolean hasNext = hits.size() > size;
+        return new SliceImpl<>(hasNext ? hits.subList(0, size) : hits, Pageable.ofSize(size), hasNext);
+    }
+
+    // Keeps the first `limit` matches in sort order, and only those coming after `after` when it is set.
+    private TopHits topHits(
+            String needle,
+            Double minPrice,
+            Double maxPrice,
+            Boolean available,
+            Sort.Order order,
+            Hit after,
+            int limit
+    ) {
+        Comparator<Hit> hitOrder = hitOrder(order);
+        TopHits top = new TopHits(hitOrder, limit);
+        lock.readLock().lock();
+        try {
+            for (Document document : candidates(needle)) {
+                if (!document.matches(needle, minPrice, maxPrice, available)) {
+                    continue;
+                }
+                Hit hit = new Hit(document.id, document.key(order.getProperty(), needle));
+                if (after == null || hitOrder.compare(hit, after) > 0) {
+                    top.offer(hit);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return top;
+    }
+
+    private Collection<Document> candidates(String needle) {
+        if (needle.length() < GRAM) {
+            Set<Long> ids = postings.get(needle);
+            return ids == null ? List.of() : ids.stream().map(documents::get).toList();
+        }
+        Set<Long> smallest = null;
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(needle, GRAM)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            lists.add(ids);
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+        List<Document> result = new ArrayList<>();
+        for (Long id : smallest) {
+            boolean inAll = true;
+            for (Set<Long> ids : lists) {
+                if (ids != smallest && !ids.contains(id)) {
+                    inAll = false;
+                    break;
+                }
+            }
+            if (inAll) {
+                result.add(documents.get(id));
+            }
+        }
+        return result;
+    }
+
+    // Keyset pages continuing after the last row read, so no query holds more than PAGE_SIZE rows or a long-running cursor.
+    private void forEachPage(Function<PropertySearchRow, List<PropertySearchRow>> nextPage) {
+        PropertySearchRow last = null;
+        List<PropertySearchRow> rows;
+        do {
+            rows = nextPage.apply(last);
+            rows.forEach(this::upsert);
+            if (!rows.isEmpty()) {
+                last = rows.get(rows.size() - 1);
+            }
+        } while (rows.size() == PAGE_SIZE);
+    }
+
+    private void removeLocked(Long propertyId) {
+        Document previous = documents.remove(propertyId);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : previous.grams()) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(propertyId);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Sort.Order primaryOrder(Sort sort) {
+        return sort.stream().findFirst().orElse(Sort.Order.desc("id"));
+    }
+
+    // Sort key first, then id in the same direction, matching the keyset order used by the database path.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Hit> hitOrder(Sort.Order order) {
+        Comparator<Hit> byKey = Comparator.comparing(hit -> (Comparable) hit.sortValue(),
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+        Comparator<Hit> ordered = byKey.thenComparing(Hit::id);
+        return order.isAscending() ? ordered : ordered.reversed();
+    }
+
+    private static Comparable<?> parseKey(String property, String raw) {
+        return switch (property) {
+            case RELEVANCE -> Integer.valueOf(raw);
+            case "name", "location" -> raw;
+            case "price" -> Double.valueOf(raw);
+            default -> Long.valueOf(raw);
+        };
+    }
+
+    // Unknown versions, as on properties built outside the database, never count as older.
+    private static boolean isOlder(Long version, Long indexed) {
+        return version != null && indexed != null && version < indexed;
+    }
+
+    private static Set<String> grams(String text, int length) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + length <= text.length(); i++) {
+            grams.add(text.substring(i, i + length));
+        }
+        return grams;
+    }
+
+    /** A matching property id together with the value it was sorted by. */
+    public record Hit(Long id, Comparable<?> sortValue) {
+    }
+
+    // Bounded selection: the heap's head is the last hit kept, evicted when a better one arrives.
+    private static final class TopHits {
+        private final Comparator<Hit> order;
+        private final int limit;
+        private final PriorityQueue<Hit> kept;
+        private long total;
+
+        private TopHits(Comparator<Hit> order, int limit) {
+            this.order = order;
+            this.limit = limit;
+            this.kept = new PriorityQueue<>(order.reversed());
+        }
+
+        private void offer(Hit hit) {
+            total++;
+            if (kept.size() < limit) {
+                kept.add(hit);
+            } else if (order.compare(hit, kept.peek()) < 0) {
+                kept.poll();
+                kept.add(hit);
+            }
+        }
+
+        private List<Hit> sorted() {
+            List<Hit> hits = new ArrayList<>(kept);
+            hits.sort(order);
+            return hits;
+        }
+    }
+
+    private static final class Document {
+        private final Long id;
+        private final Long version;
+        private final String name;
+        private final String location;
+        private final String nameKey;
+        private final String locationKey;
+        private final Double price;
+        private final boolean available;
+
+        private Document(PropertySearchRow row) {
+            this.id = row.id();
+            this.version = row.version();
+            this.name = row.name();
+            this.location = row.location();
+            this.nameKey = name == null ? "" : name.toLowerCase(Locale.ROOT);
+            this.locationKey = location == null ? "" : location.toLowerCase(Locale.ROOT);
+            this.price = row.price();
+            this.available = row.available();
+        }
+
+        // Every substring up to trigram length, so short queries have a posting list of their own.
+        private Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            for (int length = 1; length <= GRAM; length++) {
+                grams.addAll(PropertySearchIndex.grams(nameKey, length));
+                grams.addAll(PropertySearchIndex.grams(locationKey, length));
+            }
+            return grams;
+        }
+
+        private boolean matches(String needle, Double minPrice, Double maxPrice, Boolean availableFilter) {
+            if (!nameKey.contains(needle) && !locationKey.contains(needle)) {
+                return false;
+            }
+            if (minPrice != null && (price == null || price < minPrice)) {
+                return false;
+            }
+            if (maxPrice != null && (price == null || price > maxPrice)) {
+                return false;
+            }
+            return availableFilter == null || available == availableFilter;
+        }
+
+        private Comparable<?> key(String property, String needle) {
+            return switch (property) {
+                case RELEVANCE -> score(needle);
+                case "name" -> name;
+                case "location" -> location;
+                case "price" -> price;
+                default -> id;
+            };
+        }
+
+        private int score(String needle) {
+            return fieldScore(nameKey, needle) * 2 + fieldScore(locationKey, needle);
+        }
+
+        private static int fieldScore(String field, String needle) {
+            if (field.equals(needle)) {
+                return 30;
+            }
+            if (field.startsWith(needle)) {
+                return 20;
+            }
+            return field.contains(needle) ? 10 : 0;
+        }
+    }
+}
@@ -1,106 +1,382 @@
 package com.example.rental.service;
 
+import com.example.rental.dto.CursorResponse;
+import com.example.rental.dto.ModerationSummary;
 import com.example.rental.dto.PagedResponse;
+import com.example.rental.dto.PropertyModerationRequest;
+import com.example.rental.dto.PropertyResponse;
 import com.example.rental.model.Property;
 import com.example.rental.model.Property.ApprovalStatus;
 import com.example.rental.model.User;
 import com.example.rental.repo.PropertyRepository;
+import com.example.rental.repo.PropertySpecifications;
 import com.example.rental.repo.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class PropertyService {
+    // Keeps IN lists well below driver bind-parameter limits.
+    private static final int MODERATION_CHUNK = 1000;
+
     private final PropertyRepository repo;
     private final UserRepository userRepository;
+    private final PropertySearchIndex searchIndex;
+    private final StreamingExporter exporter;
+    private final PropertyListingsCache listingsCache;
+    private final ApplicationEventPublisher events;
+    private final MeterRegistry meterRegistry;
 
-    public PropertyService(PropertyRepository repo, UserRepository userRepository) {
+    public PropertyService(
+            PropertyRepository repo,
+            UserRepository userRepository,
+            PropertySearchIndex searchIndex,
+            StreamingExporter exporter,
+            PropertyListingsCache listingsCache,
+            ApplicationEventPublisher events,
+            MeterRegistry meterRegistry
+    ) {
         this.repo = repo;
         this.userRepository = userRepository;
+        this.searchIndex = searchIndex;
+        this.exporter = exporter;
+        this.listingsCache = listingsCache;
+        this.events = events;
+        this.meterRegistry = meterRegistry;
     }
 
-    public @NonNull Property add(@NonNull Property p, String userEmail) {
+    public @NonNull PropertyResponse add(@NonNull Property p, String userEmail) {
         User host = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
         p.setCreatedBy(host);
         p.setApprovalStatus(ApprovalStatus.PENDING);
-        return repo.save(p);
+        Property saved = repo.save(p);
+        events.publishEvent(new PropertyChangedEvent(saved));
+        return PropertyResponse.from(saved);
+    }
+
+    /** Approved listings as cached JSON, see {@link PropertyListingsCache}. */
+    public PropertyListingsCache.Snapshot approvedListing() {
+        return listingsCache.get(PropertyListingsCache.Listing.APPROVED);
     }
 
-    public List<Property> allApproved() {
-        return repo.findByApprovalStatus(ApprovalStatus.APPROVED);
+    public PropertyListingsCache.Snapshot availableListing() {
+        return listingsCache.get(PropertyListingsCache.Listing.AVAILABLE);
     }
 
-    public List<Property> allForAdmin() {
-        return repo.findAll();
+    @Transactional(readOnly = true)
+    public List<PropertyResponse> allForAdmin() {
+        return repo.findAllResponses();
     }
 
-    public List<Property> pendingForAdmin() {
-        return repo.findByApprovalStatus(ApprovalStatus.PENDING);
+    public void exportAllForAdmin(ExportFormat format, OutputStream out) throws IOException {
+        exporter.export(repo::streamAllForExport, format, out);
     }
 
-    public List<Property> available() {
-        return repo.findByApprovalStatusAndAvailableTrue(ApprovalStatus.APPROVED);
+    @Transactional(readOnly = true)
+    public List<PropertyResponse> pendingForAdmin() {
+        return repo.findResponsesByApprovalStatus(ApprovalStatus.PENDING);
     }
 
-    public List<Property> listingsByHost(String userEmail) {
+    @Transactional(readOnly = true)
+    public List<PropertyResponse> listingsByHost(String userEmail) {
         User host = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-        return repo.findByCreatedByIdOrderByIdDesc(host.getId());
+        return repo.findResponsesByHostId(host.getId());
     }
 
-    public PagedResponse<Property> searchApproved(
+    @Transactional(readOnly = true)
+    public PagedResponse<PropertyResponse> searchApproved(
             String query,
             Double minPrice,
             Double maxPrice,
             Boolean available,
+            LocalDate checkIn,
+            LocalDate checkOut,
             int page,
             int size,
             String sortBy,
             String sortDir
     ) {
+        requireValidStay(checkIn, checkOut);
+        int pageSize = PageSizes.bounded(size);
         String normalizedQuery = (query == null || query.isBlank()) ? null : query.trim();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String filters = filterTag(normalizedQuery, minPrice, maxPrice, available, checkIn);
+        if (normalizedQuery != null && canUseIndexes(checkIn)) {
+            Pageable pageable = PageRequest.of(
+                    Math.max(page, 0),
+                    pageSize,
+                    resolveIndexSort(sortBy, sortDir)
+            );
+            Page<Long> ids = searchIndex.search(
+                    normalizedQuery, minPrice, maxPrice, available, pageable
+            );
+            PagedResponse<PropertyResponse> response =
+                    PagedResponse.from(new PageImpl<>(hydrate(ids.getContent()), pageable, ids.getTotalElements()));
+            sample.stop(searchTimer("index", "offset", filters));
+            return response;
+        }
+
         Pageable pageable = PageRequest.of(
                 Math.max(page, 0),
-                Math.max(size, 1),
+                pageSize,
                 resolveSort(sortBy, sortDir)
         );
 
-        Page<Property> result = repo.searchApproved(
+        Page<PropertyResponse> result = repo.searchApproved(
                 ApprovalStatus.APPROVED,
                 normalizedQuery,
                 minPrice,
                 maxPrice,
                 available,
+                checkIn,
+                checkOut,
+                BookingAvailabilityIndex.ACTIVE_STATUSES,
                 pageable
         );
+        sample.stop(searchTimer("database", "offset", filters));
         return PagedResponse.from(result);
     }
 
-    public Optional<Property> findById(@NonNull Long id) { return repo.findById(id); }
+    /**
+     * Keyset-paginated variant of {@link #searchApproved}: seeks past {@code cursor}
+     * on (sort key, id) and never issues a COUNT query.
+     */
+    @Transactional(readOnly = true)
+    public CursorResponse<PropertyResponse> searchApprovedWindow(
+            String query,
+            Double minPrice,
+            Double maxPrice,
+            Boolean available,
+            LocalDate checkIn,
+            LocalDate checkOut,
+            String cursor,
+            int size,
+            String sortBy,
+            String sortDir
+    ) {
+        requireValidStay(checkIn, checkOut);
+        String normalizedQuery = (query == null || query.isBlank()) ? null : query.trim();
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int windowSize = PageSizes.bounded(size);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String filters = filterTag(normalizedQuery, minPrice, maxPrice, available, checkIn);
+
+        if (normalizedQuery != null && canUseIndexes(checkIn)) {
+            Slice<PropertySearchIndex.Hit> hits = searchIndex.searchAfter(
+                    normalizedQuery, minPrice, maxPrice, available,
+                    resolveIndexSort(sortBy, sortDir), after, windowSize
+            );
+            Map<Long, Object> sortValues = hits.stream()
+                    .collect(Collectors.toMap(PropertySearchIndex.Hit::id, PropertySearchIndex.Hit::sortValue));
+            List<PropertyResponse> properties = hydrate(hits.map(PropertySearchIndex.Hit::id).getContent());
+            sample.stop(searchTimer("index", "cursor", filters));
+            return CursorResponse.from(
+                    new SliceImpl<>(properties, hits.getPageable(), hits.hasNext()),
+                    property -> KeysetCursor.of(sortValues.get(property.getId()), property.getId()).encode()
+            );
+        }
+
+        Sort.Order order = resolveSort(sortBy, sortDir).iterator().next();
+        Specification<Property> spec = PropertySpecifications.approvedMatching(normalizedQuery, minPrice, maxPrice, available);
+        if (checkIn != null) {
+            spec = spec.and(PropertySpecifications.freeBetween(
+                    checkIn, checkOut, BookingAvailabilityIndex.ACTIVE_STATUSES));
+        }
+        if (after != null) {
+            spec = spec.and(seekAfter(order, after));
+        }
+        Sort keysetSort = Sort.by(order.getDirection(), order.getProperty(), "id");
+        List<Property> fetched = repo.findBy(spec, q -> q.sortBy(keysetSort).limit(windowSize + 1).all());
+        boolean hasNext = fetched.size() > windowSize;
+        List<PropertyResponse> items = (hasNext ? fetched.subList(0, windowSize) : fetched).stream()
+                .map(PropertyResponse::from)
+                .toList();
+        sample.stop(searchTimer("database", "cursor", filters));
+        return CursorResponse.from(
+                new SliceImpl<>(items, PageRequest.of(0, windowSize), hasNext),
+                property -> KeysetCursor.of(sortValue(property, order.getProperty()), property.getId()).encode()
+        );
+    }
 
-    public @NonNull Property approve(@NonNull Long id) {
+    @Transactional(readOnly = true)
+    public Optional<PropertyResponse> findById(@NonNull Long id) { return repo.findResponseById(id); }
+
+    @Transactional
+    public @NonNull PropertyResponse approve(@NonNull Long id) {
         Property p = repo.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Property not found"));
         p.setApprovalStatus(ApprovalStatus.APPROVED);
-        return repo.save(p);
+        Property saved = saveModerated(p);
+        events.publishEvent(new PropertyChangedEvent(saved));
+        return PropertyResponse.from(saved);
     }
 
-    public @NonNull Property reject(@NonNull Long id) {
+    @Transactional
+    public @NonNull PropertyResponse reject(@NonNull Long id) {
         Property p = repo.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Property not found"));
         p.setApprovalStatus(ApprovalStatus.REJECTED);
         p.setAvailable(false);
-        return repo.save(p);
+        Property saved = saveModerated(p);
+        events.publishEvent(new PropertyChangedEvent(saved));
+        return PropertyResponse.from(saved);
+    }
+
+    // Every booking bumps the property's version, so a decision racing one fails the version
+    // check; flush here so that surfaces as a 409 rather than an error at commit.
+    private Property saveModerated(Property property) {
+        try {
+            return repo.saveAndFlush(property);
+        } catch (OptimisticLockingFailureException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Property changed while being moderated, try again");
+        }
+    }
+
+    /**
+     * Approves or rejects many properties with set-based UPDATEs (chunks of
+     * {@value #MODERATION_CHUNK} ids) instead of a load and save per property.
+     * Listeners get a single {@link PropertyChangedEvent} for everything that
+     * changed once the transaction commits.
+     */
+    @Transactional
+    public ModerationSummary moderate(PropertyModerationRequest request) {
+        ApprovalStatus decision = request.getDecision();
+        if (decision != ApprovalStatus.APPROVED && decision != ApprovalStatus.REJECTED) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Decision must be APPROVED or REJECTED");
+        }
+
+        List<Long> targets;
+        int matched;
+        // Only a missing ids list means "all pending"; an empty selection moderates nothing.
+        if (request.getIds() == null) {
+            targets = repo.findPendingIds(request.getHostId());
+            matched = targets.size();
+        } else {
+            List<Long> requested = request.getIds().stream().filter(Objects::nonNull).distinct().toList();
+            targets = new ArrayList<>();
+            for (List<Long> chunk : chunks(requested)) {
+                targets.addAll(repo.findIdsToModerate(chunk, decision));
+            }
+            matched = requested.size();
+        }
+
+        int updated = 0;
+        List<Property> changed = new ArrayList<>(targets.size());
+        for (List<Long> chunk : chunks(targets)) {
+            updated += decision == ApprovalStatus.APPROVED ? repo.approveAll(chunk) : repo.rejectAll(chunk);
+            changed.addAll(repo.findAllById(chunk));
+        }
+        if (!changed.isEmpty()) {
+            events.publishEvent(new PropertyChangedEvent(changed));
+        }
+        return new ModerationSummary(decision, matched, updated);
+    }
+
+    // Search latency as rental.property.search, split by the path that answered and the filters that were set.
+    private Timer searchTimer(String path, String paging, String filters) {
+        return Timer.builder("rental.property.search")
+                .tag("path", path)
+                .tag("paging", paging)
+                .tag("filters", filters)
+                .register(meterRegistry);
+    }
+
+    // Which filters were given, e.g. "query+price+dates", or "none". At most 16 distinct values.
+    private static String filterTag(String query, Double minPrice, Double maxPrice, Boolean available, LocalDate checkIn) {
+        List<String> filters = new ArrayList<>(4);
+        if (query != null) {
+            filters.add("query");
+        }
+        if (minPrice != null || maxPrice != null) {
+            filters.add("price");
+        }
+        if (available != null) {
+            filters.add("available");
+        }
+        if (checkIn != null) {
+            filters.add("dates");
+        }
+        return filters.isEmpty() ? "none" : String.join("+", filters);
+    }
+
+    // A stay filter is given as both dates or neither, with check-out after check-in.
+    private static void requireValidStay(LocalDate checkIn, LocalDate checkOut) {
+        if ((checkIn == null) != (checkOut == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "checkIn and checkOut must be given together");
+        }
+        if (checkIn != null && !checkOut.isAfter(checkIn)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "checkOut must be after checkIn");
+        }
+    }
+
+    // A stay filter goes to the database: the availability index only knows this
+    // instance's bookings, so it would list properties booked elsewhere as free.
+    private boolean canUseIndexes(LocalDate checkIn) {
+        return checkIn == null && searchIndex.isReady();
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += MODERATION_CHUNK) {
+            chunks.add(ids.subList(from, Math.min(from + MODERATION_CHUNK, ids.size())));
+        }
+        return chunks;
+    }
+
+    // Loads a page of ids in one query and keeps the order the index returned.
+    private List<PropertyResponse> hydrate(List<Long> ids) {
+        Map<Long, PropertyResponse> byId = repo.findResponsesByIdIn(ids).stream()
+                .collect(Collectors.toMap(PropertyResponse::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private Specification<Property> seekAfter(Sort.Order order, KeysetCursor after) {
+        boolean ascending = order.isAscending();
+        return switch (order.getProperty()) {
+            case "name", "location" -> PropertySpecifications.after(order.getProperty(), after.sortValue(), after.id(), ascending);
+            case "price" -> PropertySpecifications.after("price", after.sortValueAs(Double::valueOf), after.id(), ascending);
+            default -> PropertySpecifications.after("id", after.id(), after.id(), ascending);
+        };
+    }
+
+    private Object sortValue(PropertyResponse property, String sortBy) {
+        return switch (sortBy) {
+            case "name" -> property.getName();
+            case "location" -> property.getLocation();
+            case "price" -> property.getPrice();
+            default -> property.getId();
+        };
     }
 
     private Sort resolveSort(String sortBy, String sortDir) {
@@ -115,5 +391,15 @@ public class PropertyService {
                 : Sort.Direction.DESC;
         return Sort.by(direction, safeSortBy);
     }
+
+    private Sort resolveIndexSort(String sortBy, String sortDir) {
+        if (PropertySearchIndex.RELEVANCE.equals(sortBy)) {
+            Sort.Direction direction = "asc".equalsIgnoreCase(sortDir)
+                    ? Sort.Direction.ASC
+                    : Sort.Direction.DESC;
+            return Sort.by(direction, PropertySearchIndex.RELEVANCE);
+        }
+        return resolveSort(sortBy, sortDir);
+    }
 }
 
@@ -0,0 +1,72 @@
+package com.example.rental.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes a database cursor straight to an HTTP response with constant memory.
+ * <p>
+ * Rows are pulled one at a time inside a read-only transaction and serialized as
+ * they arrive, flushing every {@value #FLUSH_EVERY} rows so the response goes out
+ * chunked. When the client disconnects the next write fails, which closes the
+ * cursor and ends the transaction.
+ */
+@Component
+public class StreamingExporter {
+    private static final Logger log = LoggerFactory.getLogger(StreamingExporter.class);
+    private static final int FLUSH_EVERY = 500;
+
+    private final ObjectWriter writer;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public StreamingExporter(ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public <T> void export(Supplier<Stream<T>> rows, ExportFormat format, OutputStream out) throws IOException {
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<T> stream = rows.get(); SequenceWriter sequence = open(format, out)) {
+                    long written = 0;
+                    for (Iterator<T> it = stream.iterator(); it.hasNext(); ) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            log.info("Export cancelled after {} rows", written);
+                            return;
+                        }
+                        sequence.write(it.next());
+                        if (++written % FLUSH_EVERY == 0) {
+                            sequence.flush();
+                        }
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private SequenceWriter open(ExportFormat format, OutputStream out) throws IOException {
+        return switch (format) {
+            case NDJSON -> writer.withRootValueSeparator("\n").writeValues(out);
+            case JSON -> writer.writeValuesAsArray(out);
+        };
+    }
+}
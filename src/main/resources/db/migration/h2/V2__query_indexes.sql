@@ -0,0 +1,25 @@
+-- Composite indexes for the queries in BookingRepository and PropertyRepository.
+-- Columns are ordered equality first, then range or sort, with id last so keyset
+-- windows ordered by (sort key, id) read the index in order without a sort step.
+
+-- Overlap checks, batch admission and the availability filter in property search:
+-- property_id = ? AND status IN (...) AND check_in_date < ? AND check_out_date > ?.
+-- Also serves the property_id join from a host's properties to their bookings.
+-- Created by ddl-auto=update on databases that predate migrations, hence IF NOT EXISTS.
+create index if not exists idx_booking_property_status_dates
+    on booking (property_id, status, check_in_date, check_out_date);
+
+-- GET /bookings/my and its cursor windows: user_id = ? ORDER BY created_at DESC, id DESC.
+create index idx_booking_user_created on booking (user_id, created_at, id);
+
+-- GET /bookings/admin/all, its cursor windows and the streamed export: ORDER BY created_at DESC, id DESC.
+create index idx_booking_created on booking (created_at, id);
+
+-- GET /properties, GET /properties/available and the pending queue: approval_status = ? [AND available = ?] ORDER BY id.
+create index idx_property_approval_available on property (approval_status, available, id);
+
+-- Property search with a price range or price ordering: approval_status = ? AND price BETWEEN ? AND ?.
+create index idx_property_approval_price on property (approval_status, price, id);
+
+-- GET /properties/host/my, host-scoped moderation and GET /bookings/host/my: created_by_user_id = ?.
+create index idx_property_created_by on property (created_by_user_id, id);
@@ -0,0 +1,4 @@
+-- Booking ids moved from an identity column to booking_seq (allocation size 50).
+-- The MySQL and PostgreSQL migrations move the sequence past existing ids; the H2
+-- database is in-memory and always starts empty, so it only needs the sequence.
+create sequence if not exists booking_seq start with 1 increment by 50;
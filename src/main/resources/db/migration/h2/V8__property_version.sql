@@ -0,0 +1,8 @@
+-- property.version (optimistic locking for booking admission) is in the V1 baseline, but
+-- databases baselined at V1 were created by ddl-auto=update before it existed, or got it
+-- from ddl-auto=update as a nullable column with NULLs in existing rows. Add it where it
+-- is missing and backfill NULLs so Hibernate's version increment and isNew checks work.
+alter table property add column if not exists version bigint default 0;
+update property set version = 0 where version is null;
+alter table property alter column version set default 0;
+alter table property alter column version set not null;
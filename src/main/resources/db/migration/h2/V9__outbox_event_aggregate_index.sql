@@ -0,0 +1,3 @@
+-- The relay only claims an event once its booking has no earlier undelivered event;
+-- this index answers that per-booking lookup.
+create index idx_outbox_event_aggregate on outbox_event (aggregate_id, processed_at, id);
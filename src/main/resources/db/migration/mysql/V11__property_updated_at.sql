@@ -0,0 +1,8 @@
+-- The search index refresh reads only listings changed since its last pass. updated_at moves
+-- on edits and moderation but not on the version bumps bookings make, so booked properties
+-- are not reloaded. Existing rows, and rows inserted by plain SQL, start at the insert time.
+alter table property add column updated_at datetime(6) default current_timestamp(6);
+update property set updated_at = current_timestamp(6) where updated_at is null;
+alter table property modify column updated_at datetime(6) not null default current_timestamp(6);
+
+create index idx_property_updated on property (updated_at, id);
@@ -0,0 +1,10 @@
+-- Booking ids moved from an identity column to booking_seq (allocation size 50).
+-- On databases that already held bookings, ddl-auto=update created the counter at 1,
+-- so move it past the highest existing id before Hibernate hands out a new block.
+create table if not exists booking_seq (next_val bigint) engine=InnoDB;
+insert into booking_seq (next_val)
+select 1 from dual where not exists (select 1 from booking_seq);
+
+update booking_seq
+set next_val = (select max(id) + 51 from booking)
+where next_val < (select max(id) + 51 from booking);
@@ -0,0 +1,20 @@
+-- Transactional outbox for booking lifecycle events, written with the booking and drained by
+-- BookingOutboxRelay. The index serves the relay's "undelivered, oldest first" query and the purge
+-- of delivered rows by processed_at.
+
+create table outbox_event (
+    id bigint not null,
+    type enum ('BOOKING_CANCELLED','BOOKING_CONFIRMED','BOOKING_CREATED') not null,
+    aggregate_id bigint not null,
+    payload varchar(4000) not null,
+    created_at datetime(6) not null,
+    processed_at datetime(6),
+    attempts integer not null,
+    last_error varchar(1000),
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_outbox_event_pending on outbox_event (processed_at, id);
+
+create table outbox_event_seq (next_val bigint) engine=InnoDB;
+insert into outbox_event_seq values (1);
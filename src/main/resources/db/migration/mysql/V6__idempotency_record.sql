@@ -0,0 +1,14 @@
+-- Stored results of POST /bookings calls made with an Idempotency-Key header, so a retried request is
+-- answered with the original booking. id is a hash of the caller and the key; the index serves the
+-- purge of records older than rental.idempotency.ttl.
+
+create table idempotency_record (
+    id varchar(64) not null,
+    owner_email varchar(255) not null,
+    request_hash varchar(64) not null,
+    response varchar(4000) not null,
+    created_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_idempotency_record_created on idempotency_record (created_at);
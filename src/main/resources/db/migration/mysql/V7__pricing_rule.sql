@@ -0,0 +1,20 @@
+-- Per-property pricing rules compiled by PricingEngine into nightly rate tables. Rules are always
+-- read and replaced for a whole property at once, hence the index on property_id.
+
+create table pricing_rule (
+    id bigint not null,
+    property_id bigint not null,
+    type enum ('LENGTH_OF_STAY','OCCUPANCY','SEASON','WEEKEND') not null,
+    multiplier float(53) not null,
+    start_date date,
+    end_date date,
+    min_nights integer,
+    threshold float(53),
+    primary key (id),
+    constraint fk_pricing_rule_property foreign key (property_id) references property (id)
+) engine=InnoDB;
+
+create index idx_pricing_rule_property on pricing_rule (property_id);
+
+create table pricing_rule_seq (next_val bigint) engine=InnoDB;
+insert into pricing_rule_seq values (1);
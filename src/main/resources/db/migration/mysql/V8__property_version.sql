@@ -0,0 +1,16 @@
+-- property.version (optimistic locking for booking admission) is in the V1 baseline, but
+-- databases baselined at V1 were created by ddl-auto=update before it existed, or got it
+-- from ddl-auto=update as a nullable column with NULLs in existing rows. Add it where it
+-- is missing and backfill NULLs so Hibernate's version increment and isNew checks work.
+-- MySQL has no ADD COLUMN IF NOT EXISTS, so check the catalog first.
+set @ddl = if(
+    (select count(*) from information_schema.columns
+     where table_schema = database() and table_name = 'property' and column_name = 'version') = 0,
+    'alter table property add column version bigint default 0',
+    'do 0');
+prepare add_version_column from @ddl;
+execute add_version_column;
+deallocate prepare add_version_column;
+
+update property set version = 0 where version is null;
+alter table property modify column version bigint not null default 0;
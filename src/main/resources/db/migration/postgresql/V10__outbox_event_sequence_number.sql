@@ -0,0 +1,9 @@
+-- Outbox ids come from a pooled sequence, so each instance hands them out from its own block
+-- and a later event of a booking can get a lower id than an earlier one. sequence_number is
+-- assigned by the database at insert and is what the relay orders and gates by instead.
+alter table outbox_event add column sequence_number bigint generated by default as identity;
+
+drop index idx_outbox_event_pending;
+drop index idx_outbox_event_aggregate;
+create index idx_outbox_event_pending on outbox_event (processed_at, sequence_number);
+create index idx_outbox_event_aggregate on outbox_event (aggregate_id, processed_at, sequence_number);
@@ -0,0 +1,8 @@
+-- The search index refresh reads only listings changed since its last pass. updated_at moves
+-- on edits and moderation but not on the version bumps bookings make, so booked properties
+-- are not reloaded. Existing rows, and rows inserted by plain SQL, start at the insert time.
+alter table property add column updated_at timestamp(6) default current_timestamp;
+update property set updated_at = current_timestamp where updated_at is null;
+alter table property alter column updated_at set not null;
+
+create index idx_property_updated on property (updated_at, id);
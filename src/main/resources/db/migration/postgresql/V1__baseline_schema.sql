@@ -0,0 +1,43 @@
+-- Schema as Hibernate generated it with ddl-auto=update before migrations were introduced.
+
+create sequence booking_seq start with 1 increment by 50;
+
+create table users (
+    id bigint generated by default as identity,
+    email varchar(255) not null,
+    name varchar(255) not null,
+    password varchar(255) not null,
+    role varchar(255) check (role in ('USER','ADMIN','HOST')),
+    primary key (id),
+    constraint uk_users_email unique (email)
+);
+
+create table property (
+    id bigint generated by default as identity,
+    name varchar(255),
+    location varchar(255),
+    price float(53),
+    available boolean not null,
+    created_by_user_id bigint,
+    type varchar(255) check (type in ('RENT','SALE')),
+    status varchar(255) check (status in ('AVAILABLE','BOOKED','MAINTENANCE')),
+    approval_status varchar(255) check (approval_status in ('PENDING','APPROVED','REJECTED')),
+    is_scouted boolean not null,
+    version bigint,
+    primary key (id),
+    constraint fk_property_created_by foreign key (created_by_user_id) references users (id)
+);
+
+create table booking (
+    id bigint not null,
+    property_id bigint not null,
+    user_id bigint not null,
+    check_in_date date,
+    check_out_date date,
+    total_amount float(53),
+    status varchar(255) check (status in ('REQUESTED','CONFIRMED','CANCELLED')),
+    created_at timestamp(6),
+    primary key (id),
+    constraint fk_booking_property foreign key (property_id) references property (id),
+    constraint fk_booking_user foreign key (user_id) references users (id)
+);
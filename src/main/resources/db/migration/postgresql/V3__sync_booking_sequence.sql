@@ -0,0 +1,7 @@
+-- Booking ids moved from an identity column to booking_seq (allocation size 50).
+-- On databases that already held bookings, ddl-auto=update created the sequence at 1,
+-- so move it past the highest existing id before Hibernate hands out a new block.
+create sequence if not exists booking_seq start with 1 increment by 50;
+
+select setval('booking_seq', (select max(id) + 50 from booking))
+where (select max(id) + 50 from booking) > (select last_value from booking_seq);
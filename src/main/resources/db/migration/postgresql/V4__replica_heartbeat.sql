@@ -0,0 +1,10 @@
+-- Written on the primary and read back from each read replica to measure replication lag
+-- (see ReplicaLagMonitor). Epoch milliseconds from the application clock, so database
+-- time zones and clock skew between servers do not matter.
+create table replica_heartbeat (
+    id int not null,
+    beat_millis bigint not null,
+    primary key (id)
+);
+
+insert into replica_heartbeat (id, beat_millis) values (1, 0);
@@ -0,0 +1,19 @@
+-- Per-property pricing rules compiled by PricingEngine into nightly rate tables. Rules are always
+-- read and replaced for a whole property at once, hence the index on property_id.
+
+create sequence pricing_rule_seq start with 1 increment by 50;
+
+create table pricing_rule (
+    id bigint not null,
+    property_id bigint not null,
+    type varchar(255) not null check (type in ('SEASON','WEEKEND','LENGTH_OF_STAY','OCCUPANCY')),
+    multiplier float(53) not null,
+    start_date date,
+    end_date date,
+    min_nights integer,
+    threshold float(53),
+    primary key (id),
+    constraint fk_pricing_rule_property foreign key (property_id) references property (id)
+);
+
+create index idx_pricing_rule_property on pricing_rule (property_id);
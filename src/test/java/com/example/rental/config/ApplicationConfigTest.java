@@ -0,0 +1,33 @@
+package com.example.rental.config;
+
+import com.example.rental.model.Role;
+import com.example.rental.model.User;
+import com.example.rental.repo.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class ApplicationConfigTest {
+
+    @Test
+    void userDetailsService_cachesPrincipalsUntilEvicted() {
+        UserRepository repository = mock(UserRepository.class);
+        User user = new User("guest@test.com", "hash", "Guest", Role.USER);
+        when(repository.findByEmail("guest@test.com")).thenReturn(Optional.of(user));
+        ApplicationConfig config = new ApplicationConfig(repository, 100, Duration.ofMinutes(5));
+        UserDetailsService service = config.userDetailsService();
+
+        service.loadUserByUsername("guest@test.com");
+        service.loadUserByUsername("guest@test.com");
+        verify(repository, times(1)).findByEmail("guest@test.com");
+
+        config.userCache().removeUserFromCache(user.getEmail());
+        assertEquals(user, service.loadUserByUsername("guest@test.com"));
+        verify(repository, times(2)).findByEmail("guest@test.com");
+    }
+}
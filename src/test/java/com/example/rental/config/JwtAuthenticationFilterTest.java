@@ -0,0 +1,78 @@
+package com.example.rental.config;
+
+import com.example.rental.service.JwtService;
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTest {
+
+    private final JwtService jwtService = mock(JwtService.class);
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtAuthenticationFilter filter =
+            new JwtAuthenticationFilter(jwtService, userDetailsService, false, meterRegistry);
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void invalidToken_continuesAnonymously() throws Exception {
+        when(jwtService.verify("forged")).thenThrow(new MalformedJwtException("bad token"));
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(bearer("forged"), new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userDetailsService);
+        assertEquals(1, meterRegistry.get("rental.auth.jwt.verify").tag("result", "invalid").timer().count());
+    }
+
+    @Test
+    void invalidTokens_areRateLimitedByAddress() throws Exception {
+        when(jwtService.verify("forged")).thenThrow(new MalformedJwtException("bad token"));
+        RateLimitFilter rateLimit = new RateLimitFilter(
+                true, 1000,
+                1, Duration.ofHours(1),
+                1, Duration.ofHours(1),
+                1, Duration.ofHours(1),
+                meterRegistry);
+
+        assertEquals(200, search(rateLimit).getStatus());
+        assertEquals(429, search(rateLimit).getStatus());
+    }
+
+    private MockHttpServletResponse search(RateLimitFilter rateLimit) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(bearer("forged"), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+            }
+        }, rateLimit));
+        return response;
+    }
+
+    private static MockHttpServletRequest bearer(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/properties/search");
+        request.setRemoteAddr("10.0.1.1");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
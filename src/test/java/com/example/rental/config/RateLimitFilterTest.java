@@ -0,0 +1,104 @@
+package com.example.rental.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private final RateLimitFilter filter = new RateLimitFilter(
+            true, 1000,
+            2, Duration.ofHours(1),
+            2, Duration.ofHours(1),
+            2, Duration.ofHours(1),
+            new SimpleMeterRegistry());
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void tokenBucket_allowsBurstThenRefillsAtTheRate() {
+        RateLimitFilter.Limit limit = RateLimitFilter.Limit.of(2, Duration.ofSeconds(10));
+        RateLimitFilter.TokenBucket bucket = new RateLimitFilter.TokenBucket(0);
+
+        assertEquals(0, bucket.tryAcquire(limit, 0));
+        assertEquals(0, bucket.tryAcquire(limit, 0));
+        assertEquals(TimeUnit.SECONDS.toNanos(5), bucket.tryAcquire(limit, 0));
+        assertEquals(TimeUnit.SECONDS.toNanos(1), bucket.tryAcquire(limit, TimeUnit.SECONDS.toNanos(4)));
+        assertEquals(0, bucket.tryAcquire(limit, TimeUnit.SECONDS.toNanos(5)));
+    }
+
+    @Test
+    void limit_rejectsNonPositiveCapacityOrPeriod() {
+        assertThrows(IllegalArgumentException.class, () -> RateLimitFilter.Limit.of(0, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> RateLimitFilter.Limit.of(10, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> RateLimitFilter.Limit.of(10, Duration.ofSeconds(-1)));
+    }
+
+    @Test
+    void overLimit_getsTooManyRequestsWithRetryAfter() throws Exception {
+        assertEquals(200, search("10.0.0.1").getStatus());
+        assertEquals(200, search("10.0.0.1").getStatus());
+
+        MockHttpServletResponse throttled = search("10.0.0.1");
+        assertEquals(429, throttled.getStatus());
+        assertEquals("1800", throttled.getHeader("Retry-After"));
+        assertEquals(200, search("10.0.0.2").getStatus());
+    }
+
+    @Test
+    void signedInCallers_areLimitedBySubjectNotAddress() throws Exception {
+        signIn("a@test.com");
+        assertEquals(200, call("POST", "/bookings", "10.0.0.3").getStatus());
+        assertEquals(200, call("POST", "/bookings", "10.0.0.3").getStatus());
+        assertEquals(429, call("POST", "/bookings", "10.0.0.4").getStatus());
+
+        signIn("b@test.com");
+        assertEquals(200, call("POST", "/bookings", "10.0.0.3").getStatus());
+    }
+
+    @Test
+    void quotes_shareTheSearchBucket() throws Exception {
+        assertEquals(200, search("10.0.0.6").getStatus());
+        assertEquals(200, call("GET", "/properties/7/quote", "10.0.0.6").getStatus());
+        assertEquals(429, call("GET", "/properties/8/quote", "10.0.0.6").getStatus());
+    }
+
+    @Test
+    void routesOutsideTheGroups_areNotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, call("GET", "/properties/1", "10.0.0.5").getStatus());
+        }
+    }
+
+    private MockHttpServletResponse search(String address) throws Exception {
+        return call("GET", "/properties/search", address);
+    }
+
+    private MockHttpServletResponse call(String method, String path, String address) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr(address);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static void signIn(String email) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                email, null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+}
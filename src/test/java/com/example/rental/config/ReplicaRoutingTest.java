@@ -0,0 +1,134 @@
+package com.example.rental.config;
+
+import com.example.rental.dto.BookingRequest;
+import com.example.rental.dto.BookingResponse;
+import com.example.rental.model.Property;
+import com.example.rental.model.Role;
+import com.example.rental.model.User;
+import com.example.rental.repo.PropertyRepository;
+import com.example.rental.repo.UserRepository;
+import com.example.rental.service.BookingService;
+import com.example.rental.service.PropertyService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The primary is the default in-memory H2 database and a second in-memory H2 database stands in
+// for the replica. Nothing replicates between them, so the replica's heartbeat is set by hand.
+@SpringBootTest(properties = {
+        "rental.datasource.replica.urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "rental.datasource.replica.heartbeat-interval=1h"
+})
+class ReplicaRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:replica0;DB_CLOSE_DELAY=-1";
+    private static final long REPLICA_ONLY_ID = 900_001L;
+
+    @Autowired
+    private ReplicaLagMonitor monitor;
+    @Autowired
+    private PropertyService propertyService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private PropertyRepository propertyRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ScheduledTaskHolder scheduledTasks;
+    @Value("${spring.task.scheduling.pool.size}")
+    private int schedulerThreads;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void prepareReplica() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").locations("classpath:db/migration/h2").load().migrate();
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        replica.update("DELETE FROM property WHERE id = ?", REPLICA_ONLY_ID);
+        replica.update("""
+                INSERT INTO property (id, name, location, price, available, is_scouted, approval_status, version)
+                VALUES (?, 'Replica Only', 'Replica Bay', 1000.0, TRUE, FALSE, 'APPROVED', 0)
+                """, REPLICA_ONLY_ID);
+    }
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactions_useReplicaInRotation() {
+        replicaBehindBy(0);
+
+        assertEquals(List.of("replica-0"), monitor.replicasInRotation());
+        assertTrue(propertyService.findById(REPLICA_ONLY_ID).isPresent());
+    }
+
+    // A task waiting for a free scheduler thread would delay the heartbeat and mark replicas as lagging.
+    @Test
+    void scheduler_hasAThreadForEveryScheduledTask() {
+        assertTrue(scheduledTasks.getScheduledTasks().size() <= schedulerThreads,
+                scheduledTasks.getScheduledTasks().size() + " scheduled tasks share " + schedulerThreads + " threads");
+    }
+
+    @Test
+    void laggingReplica_leavesRotationAndReadsFallBackToPrimary() {
+        replicaBehindBy(60_000);
+
+        assertEquals(List.of(), monitor.replicasInRotation());
+        assertTrue(propertyService.findById(REPLICA_ONLY_ID).isEmpty());
+    }
+
+    @Test
+    void createBooking_pinsTheGuestToPrimaryForTheirNextReads() {
+        User guest = userRepository.save(new User("replica-guest@test.com", "pass", "Guest", Role.USER));
+        User other = userRepository.save(new User("replica-other@test.com", "pass", "Other", Role.USER));
+        Property property = new Property("Primary Villa", "Primary Bay", 1200.0);
+        property.setAvailable(true);
+        property.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+        property = propertyRepository.save(property);
+        replicaBehindBy(0);
+
+        signIn(guest);
+        BookingRequest request = new BookingRequest();
+        request.setPropertyId(property.getId());
+        request.setCheckInDate(LocalDate.of(2033, 1, 10));
+        request.setCheckOutDate(LocalDate.of(2033, 1, 12));
+        BookingResponse created = bookingService.createBooking(request, guest.getEmail());
+        List<BookingResponse> mine = bookingService.getMyBookings(guest.getEmail());
+
+        // The replica has neither user, so only a read from the primary finds them.
+        assertEquals(List.of(created.getId()), mine.stream().map(BookingResponse::getId).toList());
+        signIn(other);
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> bookingService.getMyBookings(other.getEmail()));
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+    }
+
+    private void replicaBehindBy(long millis) {
+        replica.update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1", System.currentTimeMillis() - millis);
+        monitor.check();
+    }
+
+    private static void signIn(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user.getEmail(), null, user.getAuthorities()));
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.rental.config;
+
+import com.example.rental.model.Property;
+import com.example.rental.model.Role;
+import com.example.rental.model.User;
+import com.example.rental.repo.PropertyRepository;
+import com.example.rental.repo.UserRepository;
+import com.example.rental.service.JwtService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Every request made through MockMvc here is checked against its handler's @SqlBudget.
+@SpringBootTest(properties = {
+        "rental.sql.tracking.enabled=true",
+        "rental.sql.tracking.rows=true"
+})
+@AutoConfigureMockMvc
+class SqlTrackingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Test
+    void bookingLifecycle_staysWithinBudgetsAndReportsServerTiming() throws Exception {
+        User guest = userRepository.save(new User("budget-guest@test.com", "pass", "Guest", Role.USER));
+        User admin = userRepository.save(new User("budget-admin@test.com", "pass", "Admin", Role.ADMIN));
+        Property property = new Property("Budget Villa", "Budget Bay", 1800.0);
+        property.setAvailable(true);
+        property.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+        property = propertyRepository.save(property);
+        String guestToken = "Bearer " + jwtService.generateToken(guest);
+        String adminToken = "Bearer " + jwtService.generateToken(admin);
+        LocalDate checkIn = LocalDate.of(2032, 4, 1);
+
+        String body = """
+                {"propertyId": %d, "checkInDate": "%s", "checkOutDate": "%s"}
+                """.formatted(property.getId(), checkIn, checkIn.plusDays(2));
+        String created = mockMvc.perform(post("/bookings")
+                        .header("Authorization", guestToken)
+                        .header("Idempotency-Key", "budget-create-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", startsWith("db;dur=")))
+                .andReturn().getResponse().getContentAsString();
+        long bookingId = objectMapper.readTree(created).get("id").asLong();
+        // A retry with the same key replays the booking instead of hitting the overlap check.
+        mockMvc.perform(post("/bookings")
+                        .header("Authorization", guestToken)
+                        .header("Idempotency-Key", "budget-create-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(bookingId));
+
+        mockMvc.perform(post("/bookings/" + bookingId + "/confirm").header("Authorization", adminToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/bookings/my").header("Authorization", guestToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/properties/search").param("query", "budget").param("checkIn", checkIn.toString())
+                        .param("checkOut", checkIn.plusDays(1).toString()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/properties/" + property.getId() + "/calendar").param("from", checkIn.toString()))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/properties/" + property.getId() + "/pricing-rules")
+                        .header("Authorization", adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"type": "WEEKEND", "multiplier": 1.2},
+                                 {"type": "LENGTH_OF_STAY", "multiplier": 0.9, "minNights": 7}]
+                                """))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/properties/" + property.getId() + "/quote").param("checkIn", checkIn.toString())
+                        .param("checkOut", checkIn.plusDays(7).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lengthOfStayMultiplier").value(0.9));
+        mockMvc.perform(post("/bookings/" + bookingId + "/cancel").header("Authorization", guestToken))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void serverTiming_countsStatementsAndRows() throws Exception {
+        Property property = new Property("Timing Cottage", "Timing Bay", 900.0);
+        property.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+        property = propertyRepository.save(property);
+
+        String serverTiming = mockMvc.perform(get("/properties/" + property.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Server-Timing");
+
+        assertNotNull(serverTiming);
+        assertTrue(serverTiming.contains("1 statements, 1 rows"), serverTiming);
+    }
+
+    @Test
+    void overBudgetHandler_isLeftOnTheRequestForTheBudgetCheck() throws Exception {
+        SqlTrackingFilter filter = new SqlTrackingFilter(Duration.ofSeconds(5), false);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/properties");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            RequestSqlStats stats = RequestSqlStats.current();
+            stats.setBudget(budgetOfOne());
+            stats.recordStatement("select * from property where id = 1", 1_000);
+            stats.recordStatement("select * from property where id = 2", 1_000);
+        });
+
+        RequestSqlStats stats = (RequestSqlStats) request.getAttribute(SqlTrackingFilter.STATS_ATTRIBUTE);
+        assertTrue(stats.isOverBudget());
+        assertTrue(SqlTrackingFilter.overBudgetMessage("GET /properties", stats)
+                .contains("2x select * from property where id = ?"));
+        assertTrue(response.getHeader("Server-Timing").endsWith("desc=\"2 statements\""), response.getHeader("Server-Timing"));
+    }
+
+    // Fails the test when the handler ran more statements than its @SqlBudget allows.
+    static ResultMatcher withinSqlBudget() {
+        return result -> {
+            RequestSqlStats stats = (RequestSqlStats) result.getRequest().getAttribute(SqlTrackingFilter.STATS_ATTRIBUTE);
+            assertNotNull(stats, "SQL tracking is not enabled");
+            if (stats.isOverBudget()) {
+                fail("SQL budget exceeded: " + SqlTrackingFilter.overBudgetMessage(
+                        result.getRequest().getMethod() + " " + result.getRequest().getRequestURI(), stats));
+            }
+        };
+    }
+
+    @TestConfiguration
+    static class BudgetCheck {
+        @Bean
+        MockMvcBuilderCustomizer sqlBudgetCheck() {
+            return builder -> builder.alwaysExpect(withinSqlBudget());
+        }
+    }
+
+    @Test
+    void fingerprint_groupsStatementsThatDifferOnlyInValues() {
+        assertEquals(
+                RequestSqlStats.fingerprint("select  * from booking b where b.id in (?, ?, ?) and b.status='CONFIRMED'"),
+                RequestSqlStats.fingerprint("select * from booking b\n where b.id in (?,?) and b.status='REQUESTED'")
+        );
+        assertEquals("select p1_0.id from property p1_0 limit ?",
+                RequestSqlStats.fingerprint("select p1_0.id from property p1_0 limit 20"));
+    }
+
+    @SqlBudget(1)
+    private static SqlBudget budgetOfOne() {
+        try {
+            return SqlTrackingTest.class.getDeclaredMethod("budgetOfOne").getAnnotation(SqlBudget.class);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.rental.repo;
+
+import com.example.rental.model.Booking.BookingStatus;
+import com.example.rental.model.Property.ApprovalStatus;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs each hot repository method against the migrated H2 schema, captures the SQL Hibernate sent and the
+// parameters it bound, and EXPLAINs exactly that. H2 marks a full scan as "tableScan" in the plan; every
+// table these statements read must be read through an index.
+@SpringBootTest
+@Import(QueryPlanTest.CaptureStatements.class)
+class QueryPlanTest {
+    private static final ThreadLocal<List<Statement>> CAPTURED = new ThreadLocal<>();
+    private static final List<BookingStatus> ACTIVE = List.of(BookingStatus.REQUESTED, BookingStatus.CONFIRMED);
+    private static final LocalDate CHECK_IN = LocalDate.of(2030, 5, 1);
+    private static final LocalDate CHECK_OUT = LocalDate.of(2030, 5, 4);
+    private static final LocalDateTime CURSOR = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private PropertyRepository propertyRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void bookingQueries_readThroughIndexes() {
+        assertIndexed(() -> bookingRepository.existsOverlappingBooking(1L, CHECK_IN, CHECK_OUT, ACTIVE));
+        assertIndexed(() -> bookingRepository.findStaysIntersecting(List.of(1L, 2L), CHECK_IN, CHECK_OUT, ACTIVE));
+        assertIndexed(() -> bookingRepository.findStaysOfPropertyEndingAfter(1L, ACTIVE, CHECK_IN));
+        assertIndexed(() -> bookingRepository.findResponsesByUserId(1L));
+        assertIndexed(() -> bookingRepository.findUserWindow(1L, CURSOR, 500L, PageRequest.ofSize(20)));
+        assertIndexed(() -> bookingRepository.findResponsesByHostId(1L));
+        assertIndexed(() -> bookingRepository.findHostWindow(1L, CURSOR, 500L, PageRequest.ofSize(20)));
+        assertIndexed(() -> bookingRepository.findAllWindow(CURSOR, 500L, PageRequest.ofSize(20)));
+    }
+
+    @Test
+    void propertyQueries_readThroughIndexes() {
+        assertIndexed(() -> propertyRepository.findResponsesByApprovalStatus(ApprovalStatus.APPROVED));
+        assertIndexed(() -> propertyRepository.findAvailableResponses(ApprovalStatus.APPROVED));
+        assertIndexed(() -> propertyRepository.findResponsesByHostId(1L));
+        assertIndexed(() -> propertyRepository.findPendingIds(1L));
+        // A primary key range from id 0 would pass as indexed while reading every row.
+        assertIndexed("IDX_PROPERTY_UPDATED",
+                () -> propertyRepository.findSearchRowsUpdatedSince(CURSOR, 0L, Limit.of(1000)));
+        assertIndexed(() -> propertyRepository.searchApproved(ApprovalStatus.APPROVED, null, 1000.0, 3000.0,
+                null, CHECK_IN, CHECK_OUT, ACTIVE, PageRequest.of(0, 20, Sort.by("price", "id"))));
+    }
+
+    private void assertIndexed(Runnable repositoryCall) {
+        assertIndexed(null, repositoryCall);
+    }
+
+    // Every statement the call sent, page and count queries alike, has to avoid a full scan, and read
+    // through the given index when there is one.
+    private void assertIndexed(String index, Runnable repositoryCall) {
+        List<Statement> statements = new ArrayList<>();
+        CAPTURED.set(statements);
+        try {
+            repositoryCall.run();
+        } finally {
+            CAPTURED.remove();
+        }
+        assertFalse(statements.isEmpty(), "no statement was captured");
+        for (Statement statement : statements) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + statement.sql(), String.class,
+                    statement.parameters().toArray());
+            assertFalse(plan.contains("tableScan"), statement.sql() + "\n" + plan);
+            assertTrue(index == null || plan.contains(index), statement.sql() + "\n" + plan);
+        }
+    }
+
+    record Statement(String sql, List<Object> parameters) {
+    }
+
+    @TestConfiguration
+    static class CaptureStatements {
+        @Bean
+        static BeanPostProcessor capturingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                        return ProxyDataSourceBuilder.create(beanName, dataSource).listener(new Listener()).build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    private static final class Listener implements QueryExecutionListener {
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            List<Statement> statements = CAPTURED.get();
+            if (statements == null) {
+                return;
+            }
+            for (QueryInfo query : queryInfoList) {
+                List<ParameterSetOperation> bound = query.getParametersList().isEmpty()
+                        ? List.of()
+                        : query.getParametersList().get(0);
+                List<Object> parameters = bound.stream()
+                        .sorted(Comparator.comparingInt(operation -> (Integer) operation.getArgs()[0]))
+                        .map(operation -> ParameterSetOperation.isSetNullParameterOperation(operation)
+                                ? null
+                                : operation.getArgs()[1])
+                        .toList();
+                statements.add(new Statement(query.getQuery(), parameters));
+            }
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.CursorResponse;
+import com.example.rental.dto.PagedResponse;
+import com.example.rental.dto.PropertyResponse;
+import com.example.rental.model.Booking;
+import com.example.rental.model.Booking.BookingStatus;
+import com.example.rental.model.Property;
+import com.example.rental.model.Role;
+import com.example.rental.model.User;
+import com.example.rental.repo.BookingRepository;
+import com.example.rental.repo.PropertyRepository;
+import com.example.rental.repo.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class AvailabilitySearchTest {
+    private static final LocalDate CHECK_IN = LocalDate.of(2031, 3, 10);
+    private static final LocalDate CHECK_OUT = LocalDate.of(2031, 3, 14);
+
+    @Autowired
+    private PropertyService propertyService;
+    @Autowired
+    private PropertyRepository propertyRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PropertySearchIndex searchIndex;
+
+    private Property free;
+    private Property booked;
+    private Property cancelled;
+    private Property adjacent;
+
+    @BeforeEach
+    void seed() {
+        User guest = userRepository.findByEmail("stay-guest@test.com")
+                .orElseGet(() -> userRepository.save(new User("stay-guest@test.com", "pass", "Guest", Role.USER)));
+        free = approved("Stay Free");
+        booked = approved("Stay Booked");
+        cancelled = approved("Stay Cancelled");
+        adjacent = approved("Stay Adjacent");
+
+        stay(booked, guest, CHECK_IN.plusDays(2), CHECK_OUT.plusDays(3), BookingStatus.CONFIRMED);
+        stay(cancelled, guest, CHECK_IN, CHECK_OUT, BookingStatus.CANCELLED);
+        // Checks out the day the searched stay checks in, so it does not overlap.
+        stay(adjacent, guest, CHECK_IN.minusDays(3), CHECK_IN, BookingStatus.REQUESTED);
+    }
+
+    @Test
+    void databaseQuery_excludesPropertiesWithActiveOverlappingStays() {
+        PagedResponse<PropertyResponse> page = propertyService.searchApproved(
+                null, null, null, null, CHECK_IN, CHECK_OUT, 0, 100, "id", "desc"
+        );
+
+        assertEquals(List.of(adjacent.getId(), cancelled.getId(), free.getId()), seeded(ids(page.getItems())));
+    }
+
+    @Test
+    void textQueryWithDates_excludesStaysThisInstanceNeverIndexed() {
+        PagedResponse<PropertyResponse> page = propertyService.searchApproved(
+                "stay", null, null, null, CHECK_IN, CHECK_OUT, 0, 100, "id", "desc"
+        );
+
+        assertEquals(List.of(adjacent.getId(), cancelled.getId(), free.getId()), seeded(ids(page.getItems())));
+    }
+
+    @Test
+    void cursorWindow_excludesPropertiesWithActiveOverlappingStays() {
+        CursorResponse<PropertyResponse> window = propertyService.searchApprovedWindow(
+                null, null, null, null, CHECK_IN, CHECK_OUT, null, 100, "id", "desc"
+        );
+
+        assertEquals(List.of(adjacent.getId(), cancelled.getId(), free.getId()), seeded(ids(window.getItems())));
+    }
+
+    private Property approved(String name) {
+        Property property = new Property(name, "Stay Bay", 1500.0);
+        property.setAvailable(true);
+        property.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+        Property saved = propertyRepository.save(property);
+        searchIndex.upsert(saved);
+        return saved;
+    }
+
+    // Saved straight to the table, as another instance would, so the local availability index never sees it.
+    private void stay(Property property, User guest, LocalDate checkIn, LocalDate checkOut, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setProperty(property);
+        booking.setUser(guest);
+        booking.setCheckInDate(checkIn);
+        booking.setCheckOutDate(checkOut);
+        booking.setTotalAmount(1500.0);
+        booking.setStatus(status);
+        bookingRepository.save(booking);
+    }
+
+    private static List<Long> ids(List<PropertyResponse> properties) {
+        return properties.stream().map(PropertyResponse::getId).toList();
+    }
+
+    private List<Long> seeded(List<Long> ids) {
+        List<Long> mine = List.of(free.getId(), booked.getId(), cancelled.getId(), adjacent.getId());
+        return ids.stream().filter(mine::contains).toList();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.BookedRange;
+import com.example.rental.model.Booking;
+import com.example.rental.model.Booking.BookingStatus;
+import com.example.rental.model.Property;
+import com.example.rental.repo.BookedStay;
+import com.example.rental.repo.BookingRepository;
+import com.example.rental.repo.PropertyVersion;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingAvailabilityIndexTest {
+
+    private static final LocalDate BASE = LocalDate.of(2030, 1, 1);
+
+    @Test
+    void warm_loadsStaysThatHaveNotEndedAndDetectsOverlaps() {
+        BookingRepository repository = mock(BookingRepository.class);
+        when(repository.findPropertyVersionsWithStaysEndingAfter(anyList(), eq(LocalDate.now())))
+                .thenReturn(List.of(new PropertyVersion(10L, 3L)));
+        when(repository.findStaysEndingAfter(anyList(), eq(LocalDate.now())))
+                .thenReturn(List.of(stay(1L, 10L, 0, 5)));
+        BookingAvailabilityIndex index = new BookingAvailabilityIndex(repository);
+
+        assertFalse(index.isReady());
+        index.warm();
+
+        assertTrue(index.isReady());
+        assertTrue(index.hasOverlap(10L, 3, BASE.plusDays(4), BASE.plusDays(6)));
+        assertTrue(index.hasOverlap(10L, 3, BASE.minusDays(2), BASE.plusDays(1)));
+        assertFalse(index.hasOverlap(10L, 3, BASE.plusDays(5), BASE.plusDays(7)));
+        assertFalse(index.hasOverlap(10L, 3, BASE.minusDays(3), BASE));
+        verify(repository, never()).findStaysOfPropertyEndingAfter(any(), anyList(), any());
+    }
+
+    @Test
+    void longStayBeforeShortStays_isStillFound() {
+        BookingAvailabilityIndex index = indexWith(stay(1L, 10L, 0, 30), stay(2L, 10L, 10, 12));
+
+        assertTrue(index.hasOverlap(10L, 1, BASE.plusDays(20), BASE.plusDays(22)));
+        assertFalse(index.hasOverlap(10L, 1, BASE.plusDays(30), BASE.plusDays(31)));
+    }
+
+    @Test
+    void cancelledBooking_freesDates() {
+        BookingAvailabilityIndex index = indexWith(stay(1L, 10L, 0, 3));
+        assertTrue(index.hasOverlap(10L, 1, BASE, BASE.plusDays(1)));
+
+        index.apply(10L, 2, List.of(booking(1L, 10L, 0, 3, BookingStatus.CANCELLED)));
+
+        assertFalse(index.hasOverlap(10L, 2, BASE, BASE.plusDays(1)));
+    }
+
+    @Test
+    void occupancy_mergesAndClipsStays() {
+        BookingAvailabilityIndex index = indexWith(
+                stay(1L, 10L, 0, 30), stay(2L, 10L, 30, 32), stay(3L, 10L, 40, 45), stay(4L, 10L, 50, 52));
+
+        BookingAvailabilityIndex.Occupancy occupancy = index.occupancy(10L, 1, BASE.plusDays(20), BASE.plusDays(42));
+
+        assertEquals(2, occupancy.booked().size());
+        assertEquals(BASE.plusDays(20), occupancy.booked().get(0).getFrom());
+        assertEquals(BASE.plusDays(32), occupancy.booked().get(0).getTo());
+        assertEquals(BASE.plusDays(40), occupancy.booked().get(1).getFrom());
+        assertEquals(BASE.plusDays(42), occupancy.booked().get(1).getTo());
+
+        index.apply(10L, 2, List.of(booking(3L, 10L, 40, 45, BookingStatus.CANCELLED)));
+
+        assertEquals(1, index.occupancy(10L, 2, BASE.plusDays(20), BASE.plusDays(42)).booked().size());
+    }
+
+    @Test
+    void endedStays_areDropped() {
+        LocalDate today = LocalDate.now();
+        BookingAvailabilityIndex index = indexWith();
+        Booking ended = booking(1L, 10L, 0, 3, BookingStatus.CONFIRMED);
+        ended.setCheckInDate(today.minusDays(3));
+        ended.setCheckOutDate(today);
+        Booking ongoing = booking(2L, 10L, 0, 3, BookingStatus.CONFIRMED);
+        ongoing.setCheckInDate(today.minusDays(1));
+        ongoing.setCheckOutDate(today.plusDays(1));
+
+        index.apply(10L, 2, List.of(ended, ongoing));
+
+        List<BookedRange> booked = index.occupancy(10L, 2, today.minusDays(5), today.plusDays(5)).booked();
+        assertEquals(1, booked.size());
+        assertEquals(today.minusDays(1), booked.get(0).getFrom());
+    }
+
+    @Test
+    void versionedLookups_reloadOnlyWhenAnotherInstanceChangedTheProperty() {
+        BookingRepository repository = mock(BookingRepository.class);
+        Booking second = booking(2L, 10L, 10, 12, BookingStatus.REQUESTED);
+        when(repository.findStaysOfPropertyEndingAfter(eq(10L), anyList(), any())).thenReturn(List.of(stay(1L, 10L, 0, 5)));
+        BookingAvailabilityIndex index = new BookingAvailabilityIndex(repository);
+
+        assertTrue(index.hasOverlap(10L, 5, BASE, BASE.plusDays(1)));
+        // Booked here right after version 5: the stays stay current without a reload.
+        index.apply(10L, 6, List.of(second));
+        assertTrue(index.hasOverlap(10L, 6, BASE.plusDays(10), BASE.plusDays(11)));
+        assertEquals(6, index.occupancy(10L, 6, BASE, BASE.plusDays(30)).version());
+        verify(repository, times(1)).findStaysOfPropertyEndingAfter(eq(10L), anyList(), any());
+
+        // Another instance cancels the first stay at version 7.
+        when(repository.findStaysOfPropertyEndingAfter(eq(10L), anyList(), any())).thenReturn(List.of(stay(2L, 10L, 10, 12)));
+        assertFalse(index.hasOverlap(10L, 7, BASE, BASE.plusDays(1)));
+        assertEquals(7, index.occupancy(10L, 7, BASE, BASE.plusDays(30)).version());
+        verify(repository, times(2)).findStaysOfPropertyEndingAfter(eq(10L), anyList(), any());
+    }
+
+    @Test
+    void changeOlderThanTheSyncedVersion_isIgnored() {
+        BookingRepository repository = mock(BookingRepository.class);
+        when(repository.findStaysOfPropertyEndingAfter(eq(10L), anyList(), any())).thenReturn(List.of());
+        BookingAvailabilityIndex index = new BookingAvailabilityIndex(repository);
+        assertFalse(index.hasOverlap(10L, 8, BASE, BASE.plusDays(1)));
+
+        // A booking committed at version 7 and cancelled since, applied late.
+        index.apply(10L, 7, List.of(booking(1L, 10L, 0, 5, BookingStatus.REQUESTED)));
+
+        assertFalse(index.hasOverlap(10L, 8, BASE, BASE.plusDays(1)));
+        assertEquals(8, index.occupancy(10L, 8, BASE, BASE.plusDays(1)).version());
+        verify(repository, times(1)).findStaysOfPropertyEndingAfter(eq(10L), anyList(), any());
+    }
+
+    // An index whose property 10 is synced at version 1 with the given stays.
+    private BookingAvailabilityIndex indexWith(BookedStay... stays) {
+        BookingRepository repository = mock(BookingRepository.class);
+        when(repository.findStaysOfPropertyEndingAfter(eq(10L), anyList(), any())).thenReturn(List.of(stays));
+        BookingAvailabilityIndex index = new BookingAvailabilityIndex(repository);
+        index.hasOverlap(10L, 1, BASE, BASE);
+        return index;
+    }
+
+    private BookedStay stay(Long id, Long propertyId, int startOffset, int endOffset) {
+        return new BookedStay(id, propertyId, BASE.plusDays(startOffset), BASE.plusDays(endOffset));
+    }
+
+    private Booking booking(Long id, Long propertyId, int startOffset, int endOffset, BookingStatus status) {
+        Property property = new Property("Lake View", "Hyderabad", 2000.0);
+        property.setId(propertyId);
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setProperty(property);
+        booking.setCheckInDate(BASE.plusDays(startOffset));
+        booking.setCheckOutDate(BASE.plusDays(endOffset));
+        booking.setStatus(status);
+        return booking;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.BookingRequest;
+import com.example.rental.model.Booking;
+import com.example.rental.model.Booking.BookingStatus;
+import com.example.rental.model.Property;
+import com.example.rental.model.Role;
+import com.example.rental.model.User;
+import com.example.rental.repo.BookingRepository;
+import com.example.rental.repo.PropertyRepository;
+import com.example.rental.repo.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BookingConcurrencyTest {
+
+    private static final int ATTEMPTS_PER_PROPERTY = 24;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private PropertyRepository propertyRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentRequestsForSameDates_admitExactlyOneBookingPerProperty() throws Exception {
+        User guest = userRepository.save(new User("stress-guest@test.com", "pass", "Guest", Role.USER));
+        Property first = propertyRepository.save(approvedProperty("Stress One"));
+        Property second = propertyRepository.save(approvedProperty("Stress Two"));
+        LocalDate checkIn = LocalDate.now().plusDays(10);
+        LocalDate checkOut = checkIn.plusDays(3);
+
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < ATTEMPTS_PER_PROPERTY * 2; i++) {
+                Long propertyId = (i % 2 == 0) ? first.getId() : second.getId();
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        bookingService.createBooking(request(propertyId, checkIn, checkOut), guest.getEmail());
+                        accepted.incrementAndGet();
+                    } catch (ResponseStatusException ex) {
+                        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+                        conflicts.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(2, accepted.get());
+        assertEquals(ATTEMPTS_PER_PROPERTY * 2 - 2, conflicts.get());
+        assertEquals(1, activeBookings(first.getId()));
+        assertEquals(1, activeBookings(second.getId()));
+    }
+
+    @Test
+    void cancellationOnAnotherInstance_reachesTheCalendar() {
+        User guest = userRepository.save(new User("calendar-guest-" + System.nanoTime() + "@test.com",
+                "pass", "Guest", Role.USER));
+        Property property = propertyRepository.save(approvedProperty("Calendar Villa"));
+        LocalDate checkIn = LocalDate.now().plusDays(20);
+        bookingService.propertyCalendar(property.getId(), checkIn, checkIn.plusDays(10));
+
+        Long bookingId = bookingService.createBooking(request(property.getId(), checkIn, checkIn.plusDays(2)),
+                guest.getEmail()).getId();
+        BookingService.OccupancyCalendar booked = bookingService.propertyCalendar(property.getId(), checkIn, checkIn.plusDays(10));
+        assertEquals(1, booked.body().getBooked().size());
+
+        // What a cancellation committed by another instance leaves behind.
+        jdbcTemplate.update("update booking set status = 'CANCELLED' where id = ?", bookingId);
+        jdbcTemplate.update("update property set version = version + 1 where id = ?", property.getId());
+
+        BookingService.OccupancyCalendar freed = bookingService.propertyCalendar(property.getId(), checkIn, checkIn.plusDays(10));
+        assertTrue(freed.body().getBooked().isEmpty());
+        assertNotEquals(booked.etag(), freed.etag());
+    }
+
+    @Test
+    void bookingOnAnotherInstance_blocksAnOverlappingBooking() {
+        User guest = userRepository.save(new User("overlap-guest-" + System.nanoTime() + "@test.com",
+                "pass", "Guest", Role.USER));
+        Property property = propertyRepository.save(approvedProperty("Overlap Villa"));
+        LocalDate checkIn = LocalDate.now().plusDays(20);
+        bookingService.createBooking(request(property.getId(), checkIn, checkIn.plusDays(2)), guest.getEmail());
+
+        // What a booking committed by another instance leaves behind: this instance's index never sees it.
+        Booking elsewhere = new Booking();
+        elsewhere.setProperty(property);
+        elsewhere.setUser(guest);
+        elsewhere.setCheckInDate(checkIn.plusDays(10));
+        elsewhere.setCheckOutDate(checkIn.plusDays(12));
+        elsewhere.setTotalAmount(3000.0);
+        elsewhere.setStatus(BookingStatus.CONFIRMED);
+        bookingRepository.save(elsewhere);
+        jdbcTemplate.update("update property set version = version + 1 where id = ?", property.getId());
+
+        ResponseStatusException conflict = assertThrows(ResponseStatusException.class, () -> bookingService.createBooking(
+                request(property.getId(), checkIn.plusDays(11), checkIn.plusDays(13)), guest.getEmail()));
+        assertEquals(HttpStatus.CONFLICT, conflict.getStatusCode());
+        assertEquals(2, activeBookings(property.getId()));
+    }
+
+    @Test
+    void booking_bumpsVersionButLeavesUpdatedAtAlone() {
+        User guest = userRepository.save(new User("touch-guest-" + System.nanoTime() + "@test.com",
+                "pass", "Guest", Role.USER));
+        Long propertyId = propertyRepository.save(approvedProperty("Quiet Villa")).getId();
+        Property property = propertyRepository.findById(propertyId).orElseThrow();
+        LocalDate checkIn = LocalDate.now().plusDays(30);
+
+        bookingService.createBooking(request(property.getId(), checkIn, checkIn.plusDays(2)), guest.getEmail());
+
+        Property booked = propertyRepository.findById(property.getId()).orElseThrow();
+        assertTrue(booked.getVersion() > property.getVersion());
+        assertEquals(property.getUpdatedAt(), booked.getUpdatedAt());
+    }
+
+    private long activeBookings(Long propertyId) {
+        return bookingRepository.findByStatusIn(List.of(BookingStatus.REQUESTED, BookingStatus.CONFIRMED))
+                .stream()
+                .filter(booking -> booking.getProperty().getId().equals(propertyId))
+                .count();
+    }
+
+    private Property approvedProperty(String name) {
+        Property property = new Property(name, "Hyderabad", 1500.0);
+        property.setAvailable(true);
+        property.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+        return property;
+    }
+
+    private BookingRequest request(Long propertyId, LocalDate checkIn, LocalDate checkOut) {
+        BookingRequest request = new BookingRequest();
+        request.setPropertyId(propertyId);
+        request.setCheckInDate(checkIn);
+        request.setCheckOutDate(checkOut);
+        return request;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.BookingRequest;
+import com.example.rental.dto.BookingResponse;
+import com.example.rental.model.IdempotencyRecord;
+import com.example.rental.model.Property;
+import com.example.rental.model.Role;
+import com.example.rental.model.User;
+import com.example.rental.repo.IdempotencyRecordRepository;
+import com.example.rental.repo.PropertyRepository;
+import com.example.rental.repo.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class BookingIdempotencyTest {
+    private static final int CONCURRENT_RETRIES = 8;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired
+    private PropertyRepository propertyRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User guest;
+    private Property property;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+        guest = userRepository.save(new User("idem-guest-" + suffix + "@test.com", "pass", "Guest", Role.USER));
+        property = new Property("Idempotent Villa " + suffix, "Retry Bay", 900.0);
+        property.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+        property = propertyRepository.save(property);
+    }
+
+    @Test
+    void retryWithSameKey_returnsTheFirstBooking() {
+        BookingResponse first = bookingService.createBooking(request(LocalDate.of(2035, 1, 1)), guest.getEmail(), "retry-1");
+        BookingResponse retry = bookingService.createBooking(request(LocalDate.of(2035, 1, 1)), guest.getEmail(), "retry-1");
+
+        assertEquals(first.getId(), retry.getId());
+        assertEquals(1, bookingService.getMyBookings(guest.getEmail()).size());
+        assertEquals(List.of(guest.getEmail()), idempotencyRecordRepository.findAll().stream()
+                .map(IdempotencyRecord::getOwnerEmail)
+                .filter(guest.getEmail()::equals)
+                .toList());
+    }
+
+    @Test
+    void sameKeyWithDifferentBody_isRejected() {
+        bookingService.createBooking(request(LocalDate.of(2035, 2, 1)), guest.getEmail(), "retry-2");
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> bookingService.createBooking(request(LocalDate.of(2035, 2, 10)), guest.getEmail(), "retry-2"));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, ex.getStatusCode());
+        assertEquals(1, bookingService.getMyBookings(guest.getEmail()).size());
+    }
+
+    @Test
+    void failedRequest_isNotRecordedSoTheKeyCanBeRetried() {
+        property.setApprovalStatus(Property.ApprovalStatus.PENDING);
+        propertyRepository.save(property);
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> bookingService.createBooking(request(LocalDate.of(2035, 3, 1)), guest.getEmail(), "retry-3"));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+
+        Property approved = propertyRepository.findById(property.getId()).orElseThrow();
+        approved.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+        propertyRepository.save(approved);
+        BookingResponse booked = bookingService.createBooking(request(LocalDate.of(2035, 3, 1)), guest.getEmail(), "retry-3");
+
+        assertEquals("REQUESTED", booked.getStatus());
+    }
+
+    @Test
+    void concurrentDuplicates_coalesceOntoOneBooking() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENT_RETRIES);
+        try {
+            List<Future<BookingResponse>> calls = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_RETRIES; i++) {
+                calls.add(pool.submit(() -> {
+                    start.await();
+                    return bookingService.createBooking(request(LocalDate.of(2035, 4, 1)), guest.getEmail(), "retry-4");
+                }));
+            }
+            start.countDown();
+
+            Long bookingId = calls.get(0).get().getId();
+            for (Future<BookingResponse> call : calls) {
+                assertEquals(bookingId, call.get().getId());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, bookingService.getMyBookings(guest.getEmail()).size());
+    }
+
+    @Test
+    void expiredRecordAwaitingPurge_isNotReplayed() {
+        BookingResponse first = bookingService.createBooking(request(LocalDate.of(2035, 5, 1)), guest.getEmail(), "retry-5");
+        jdbcTemplate.update("update idempotency_record set created_at = ? where owner_email = ?",
+                LocalDateTime.now().minusHours(25), guest.getEmail());
+        // Another instance, which has not cached the first result.
+        BookingIdempotency elsewhere = new BookingIdempotency(idempotencyRecordRepository, objectMapper,
+                transactionManager, new SimpleMeterRegistry(), 100, Duration.ofHours(24));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        BookingResponse again = elsewhere.execute(guest.getEmail(), "retry-5", request(LocalDate.of(2035, 5, 1)),
+                claim -> transaction.execute(status -> {
+                    BookingResponse response = new BookingResponse();
+                    response.setId(first.getId() + 1000);
+                    elsewhere.record(claim, response);
+                    return response;
+                }));
+
+        assertEquals(first.getId() + 1000, again.getId());
+        assertEquals(1, idempotencyRecordRepository.findAll().stream()
+                .filter(record -> record.getOwnerEmail().equals(guest.getEmail()))
+                .count());
+    }
+
+    private BookingRequest request(LocalDate checkIn) {
+        BookingRequest request = new BookingRequest();
+        request.setPropertyId(property.getId());
+        request.setCheckInDate(checkIn);
+        request.setCheckOutDate(checkIn.plusDays(3));
+        return request;
+    }
+}
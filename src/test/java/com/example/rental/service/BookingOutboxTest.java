@@ -0,0 +1,210 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.BookingRequest;
+import com.example.rental.dto.BookingResponse;
+import com.example.rental.model.OutboxEvent;
+import com.example.rental.model.OutboxEvent.Type;
+import com.example.rental.model.Property;
+import com.example.rental.model.Role;
+import com.example.rental.model.User;
+import com.example.rental.repo.OutboxEventRepository;
+import com.example.rental.repo.PropertyRepository;
+import com.example.rental.repo.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Own database so relays in other cached test contexts cannot claim these events; the
+// relay never polls on its own here and is drained by hand.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outboxtest",
+        "rental.outbox.poll-interval=1h",
+        "rental.outbox.max-attempts=2"
+})
+class BookingOutboxTest {
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingOutboxRelay relay;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private PropertyRepository propertyRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RecordingListener listener;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User guest;
+    private Property property;
+
+    @BeforeEach
+    void setUp() {
+        relay.drain();
+        listener.clear();
+        String suffix = String.valueOf(System.nanoTime());
+        guest = userRepository.save(new User("outbox-guest-" + suffix + "@test.com", "pass", "Guest", Role.USER));
+        property = new Property("Outbox Villa " + suffix, "Outbox Bay", 1000.0);
+        property.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+        property = propertyRepository.save(property);
+    }
+
+    @Test
+    void lifecycleChanges_areDeliveredInOrderAndMarkedProcessed() {
+        BookingResponse created = book(LocalDate.of(2034, 5, 1));
+        bookingService.confirmBooking(created.getId());
+        bookingService.cancelBooking(created.getId(), guest.getEmail(), false);
+        // Cancelling again changes nothing and records nothing.
+        bookingService.cancelBooking(created.getId(), guest.getEmail(), false);
+        assertTrue(listener.received.isEmpty());
+
+        relay.drain();
+
+        assertEquals(List.of(Type.BOOKING_CREATED, Type.BOOKING_CONFIRMED, Type.BOOKING_CANCELLED),
+                listener.received.stream().map(BookingEvent::type).toList());
+        assertTrue(listener.received.stream().allMatch(event -> event.booking().getId().equals(created.getId())));
+        assertEquals("CANCELLED", listener.received.get(2).booking().getStatus());
+        assertTrue(eventsFor(created).stream().allMatch(event -> event.getProcessedAt() != null));
+    }
+
+    @Test
+    void failingListener_isRetriedOnTheNextPoll() {
+        BookingResponse created = book(LocalDate.of(2034, 6, 1));
+        listener.failOnce.add(created.getId());
+
+        relay.drain();
+        assertTrue(listener.received.isEmpty());
+        OutboxEvent pending = eventsFor(created).get(0);
+        assertEquals(1, pending.getAttempts());
+        assertTrue(pending.getLastError().contains("listener down"));
+
+        relay.drain();
+        assertEquals(List.of(created.getId()),
+                listener.received.stream().map(event -> event.booking().getId()).toList());
+    }
+
+    @Test
+    void eventFailingEveryAttempt_isParkedAndStopsBlockingLaterEvents() {
+        BookingResponse poison = book(LocalDate.of(2034, 7, 1));
+        BookingResponse next = book(LocalDate.of(2034, 7, 10));
+        listener.failAlways.add(poison.getId());
+
+        relay.drain();
+        relay.drain();
+        relay.drain();
+
+        assertEquals(List.of(next.getId()),
+                listener.received.stream().map(event -> event.booking().getId()).toList());
+        OutboxEvent parked = eventsFor(poison).get(0);
+        assertEquals(2, parked.getAttempts());
+        assertNull(parked.getProcessedAt());
+    }
+
+    @Test
+    void pendingEvents_areClaimedOnlyAtTheHeadOfTheirBooking() {
+        BookingResponse first = book(LocalDate.of(2034, 8, 1));
+        bookingService.confirmBooking(first.getId());
+        BookingResponse second = book(LocalDate.of(2034, 8, 10));
+
+        // What a relay on another instance sees: the CONFIRMED event waits behind its booking's CREATED.
+        List<OutboxEvent> claimable = transactionTemplate.execute(status ->
+                outboxEventRepository.findPending(2, PageRequest.of(0, 100)));
+
+        assertEquals(List.of(first.getId(), second.getId()),
+                claimable.stream().map(OutboxEvent::getAggregateId).toList());
+        assertTrue(claimable.stream().allMatch(event -> event.getType() == Type.BOOKING_CREATED));
+    }
+
+    @Test
+    void eventsOfOneBooking_followInsertOrderEvenWhenIdsDoNot() throws Exception {
+        // Two instances drawing ids from different pooled blocks: CREATED is written on one with
+        // id 1_000_051, then CONFIRMED on the other with the lower id 1_000_004.
+        BookingResponse booking = book(LocalDate.of(2034, 9, 1));
+        relay.drain();
+        listener.clear();
+        long aggregateId = booking.getId() + 1_000_000;
+        insertEvent(1_000_051L, Type.BOOKING_CREATED, aggregateId, booking);
+        insertEvent(1_000_004L, Type.BOOKING_CONFIRMED, aggregateId, booking);
+
+        List<OutboxEvent> claimable = transactionTemplate.execute(status ->
+                outboxEventRepository.findPending(2, PageRequest.of(0, 100)));
+        assertEquals(List.of(1_000_051L), claimable.stream().map(OutboxEvent::getId).toList());
+
+        relay.drain();
+        assertEquals(List.of(Type.BOOKING_CREATED, Type.BOOKING_CONFIRMED),
+                listener.received.stream().map(BookingEvent::type).toList());
+    }
+
+    private BookingResponse book(LocalDate checkIn) {
+        BookingRequest request = new BookingRequest();
+        request.setPropertyId(property.getId());
+        request.setCheckInDate(checkIn);
+        request.setCheckOutDate(checkIn.plusDays(2));
+        return bookingService.createBooking(request, guest.getEmail());
+    }
+
+    private void insertEvent(long id, Type type, long aggregateId, BookingResponse booking) throws Exception {
+        jdbcTemplate.update(
+                "insert into outbox_event (id, type, aggregate_id, payload, created_at, attempts) values (?, ?, ?, ?, ?, 0)",
+                id, type.name(), aggregateId, objectMapper.writeValueAsString(booking), LocalDateTime.now());
+    }
+
+    private List<OutboxEvent> eventsFor(BookingResponse booking) {
+        return outboxEventRepository.findAll().stream()
+                .filter(event -> event.getAggregateId().equals(booking.getId()))
+                .toList();
+    }
+
+    static class RecordingListener {
+        final List<BookingEvent> received = new CopyOnWriteArrayList<>();
+        final Set<Long> failOnce = ConcurrentHashMap.newKeySet();
+        final Set<Long> failAlways = ConcurrentHashMap.newKeySet();
+
+        @EventListener
+        void on(BookingEvent event) {
+            Long bookingId = event.booking().getId();
+            if (failOnce.remove(bookingId) || failAlways.contains(bookingId)) {
+                throw new IllegalStateException("listener down for booking " + bookingId);
+            }
+            received.add(event);
+        }
+
+        void clear() {
+            received.clear();
+            failOnce.clear();
+            failAlways.clear();
+        }
+    }
+
+    @TestConfiguration
+    static class Listeners {
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.BookingBatchResponse;
+import com.example.rental.dto.BookingRequest;
+import com.example.rental.dto.BookingResponse;
+import com.example.rental.model.Booking;
+import com.example.rental.model.Booking.BookingStatus;
+import com.example.rental.model.Property;
+import com.example.rental.model.Role;
+import com.example.rental.model.User;
+import com.example.rental.repo.BookingRepository;
+import com.example.rental.repo.PropertyRepository;
+import com.example.rental.repo.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the booking list endpoints against N+1 loads of the lazy property and
+ * user associations: each call may issue the user lookup plus one list query.
+ * Batch creation must likewise stay at a fixed number of statements.
+ */
+// Statistics are global to the context, so the outbox relay must not poll while statements are counted.
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "rental.outbox.poll-interval=1h"
+})
+class BookingQueryCountTest {
+    private static final int MAX_STATEMENTS = 2;
+    private static final int BOOKINGS = 6;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private PropertyRepository propertyRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User host;
+    private User guest;
+    private final List<Property> properties = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String suffix = String.valueOf(System.nanoTime());
+        host = userRepository.save(new User("count-host-" + suffix + "@test.com", "pass", "Host", Role.HOST));
+        guest = userRepository.save(new User("count-guest-" + suffix + "@test.com", "pass", "Guest", Role.USER));
+        for (int i = 0; i < BOOKINGS; i++) {
+            Property property = new Property("Count Villa " + i, "Count Bay", 1000.0);
+            property.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+            property.setCreatedBy(host);
+            property = propertyRepository.save(property);
+            properties.add(property);
+
+            Booking booking = new Booking();
+            booking.setProperty(property);
+            booking.setUser(guest);
+            booking.setCheckInDate(LocalDate.of(2031, 3, 1));
+            booking.setCheckOutDate(LocalDate.of(2031, 3, 3));
+            booking.setTotalAmount(2000.0);
+            booking.setStatus(BookingStatus.REQUESTED);
+            bookingRepository.save(booking);
+        }
+    }
+
+    @Test
+    void listEndpoints_issueBoundedStatements() {
+        assertEquals(BOOKINGS, countStatements(() -> bookingService.getMyBookings(guest.getEmail())).size());
+        assertEquals(BOOKINGS, countStatements(() -> bookingService.getHostBookings(host.getEmail())).size());
+        assertTrue(countStatements(() -> bookingService.getAllBookingsForAdmin()).size() >= BOOKINGS);
+    }
+
+    @Test
+    void windowEndpoints_issueBoundedStatements() {
+        assertEquals(BOOKINGS, countStatements(
+                () -> bookingService.getMyBookingsWindow(guest.getEmail(), null, 50).getItems()).size());
+        assertEquals(BOOKINGS, countStatements(
+                () -> bookingService.getHostBookingsWindow(host.getEmail(), null, 50).getItems()).size());
+        assertEquals(4, countStatements(
+                () -> bookingService.getAllBookingsForAdminWindow(null, 4).getItems()).size());
+    }
+
+    @Test
+    void batchCreate_insertsAcceptedRowsInJdbcBatches() {
+        List<BookingRequest> requests = new ArrayList<>();
+        LocalDate start = LocalDate.now().plusYears(1);
+        for (int i = 0; i < 40; i++) {
+            BookingRequest request = new BookingRequest();
+            request.setPropertyId(properties.get(i % properties.size()).getId());
+            request.setCheckInDate(start.plusDays(i * 2L));
+            request.setCheckOutDate(start.plusDays(i * 2L + 1));
+            requests.add(request);
+        }
+
+        statistics.clear();
+        BookingBatchResponse response = bookingService.createBookings(requests, guest.getEmail());
+
+        assertEquals(40, response.getAcceptedCount());
+        // user + properties + existing stays + pricing rules + booking and outbox sequences
+        // + one insert batch each + one version-bump batch
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= 9, "Expected at most 9 statements but saw " + statements);
+        assertEquals(80, statistics.getEntityInsertCount());
+    }
+
+    private List<BookingResponse> countStatements(Supplier<List<BookingResponse>> call) {
+        statistics.clear();
+        List<BookingResponse> rows = call.get();
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= MAX_STATEMENTS,
+                "Expected at most " + MAX_STATEMENTS + " statements but saw " + statements);
+        return rows;
+    }
+}
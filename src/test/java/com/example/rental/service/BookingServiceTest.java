@@ -1,5 +1,7 @@
 package com.example.rental.service;
 
+import com.example.rental.dto.BookedRange;
+import com.example.rental.dto.BookingBatchResponse;
 import com.example.rental.dto.BookingRequest;
 import com.example.rental.dto.BookingResponse;
 import com.example.rental.model.Booking;
@@ -9,15 +11,24 @@ import com.example.rental.model.User;
 import com.example.rental.repo.BookingRepository;
 import com.example.rental.repo.PropertyRepository;
 import com.example.rental.repo.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -32,10 +43,43 @@ class BookingServiceTest {
     private PropertyRepository propertyRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private BookingAvailabilityIndex availabilityIndex;
+    @Mock
+    private BookingAdmission admission;
+    @Mock
+    private StreamingExporter exporter;
+    @Mock
+    private BookingOutbox outbox;
+    @Mock
+    private BookingIdempotency idempotency;
+    @Mock
+    private PricingEngine pricing;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @InjectMocks
     private BookingService bookingService;
 
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void runAdmissionInline() {
+        lenient().when(admission.admit(anyLong(), any(), any())).thenAnswer(invocation -> {
+            Object result = invocation.getArgument(1, Supplier.class).get();
+            invocation.getArgument(2, Consumer.class).accept(result);
+            return result;
+        });
+        lenient().when(admission.admitAll(anyCollection(), any(), any())).thenAnswer(invocation -> {
+            Object result = invocation.getArgument(1, Supplier.class).get();
+            invocation.getArgument(2, Consumer.class).accept(result);
+            return result;
+        });
+        // Flat nightly rate, as for a property without pricing rules.
+        lenient().when(pricing.totalFor(any(), any(), any())).thenAnswer(invocation ->
+                ChronoUnit.DAYS.between(invocation.getArgument(1, LocalDate.class), invocation.getArgument(2, LocalDate.class))
+                        * invocation.getArgument(0, Property.class).getPrice());
+    }
+
     @Test
     void createBooking_createsRequestedBookingWithTotal() {
         Property property = new Property("Lake View", "Hyderabad", 2000.0);
@@ -50,7 +94,7 @@ class BookingServiceTest {
         request.setCheckInDate(LocalDate.now().plusDays(1));
         request.setCheckOutDate(LocalDate.now().plusDays(4));
 
-        when(propertyRepository.findById(1L)).thenReturn(Optional.of(property));
+        when(propertyRepository.findByIdForBooking(1L)).thenReturn(Optional.of(property));
         when(userRepository.findByEmail("buyer@test.com")).thenReturn(Optional.of(user));
         when(bookingRepository.existsOverlappingBooking(anyLong(), any(), any(), anyList())).thenReturn(false);
         when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> {
@@ -64,6 +108,7 @@ class BookingServiceTest {
         assertEquals("REQUESTED", response.getStatus());
         assertEquals(6000.0, response.getTotalAmount());
         assertEquals(1L, response.getPropertyId());
+        verify(availabilityIndex).apply(eq(1L), anyLong(), argThat(saved -> saved.size() == 1));
     }
 
     @Test
@@ -78,11 +123,102 @@ class BookingServiceTest {
         request.setCheckInDate(LocalDate.now().plusDays(1));
         request.setCheckOutDate(LocalDate.now().plusDays(3));
 
-        when(propertyRepository.findById(1L)).thenReturn(Optional.of(property));
+        when(propertyRepository.findByIdForBooking(1L)).thenReturn(Optional.of(property));
         when(userRepository.findByEmail("buyer@test.com")).thenReturn(Optional.of(user));
         when(bookingRepository.existsOverlappingBooking(anyLong(), any(), any(), anyList())).thenReturn(true);
 
         assertThrows(ResponseStatusException.class, () -> bookingService.createBooking(request, "buyer@test.com"));
+        assertEquals(1, meterRegistry.get("rental.booking.create").tag("outcome", "conflict").timer().count());
+        assertEquals(1, meterRegistry.get("rental.booking.overlap").tag("source", "database").timer().count());
+    }
+
+    @Test
+    void createBooking_whenIndexReady_usesIndexInsteadOfQuery() {
+        Property property = new Property("Lake View", "Hyderabad", 2000.0);
+        property.setId(1L);
+        property.setVersion(5L);
+        property.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+        User user = new User("buyer@test.com", "pass", "Buyer", Role.USER);
+
+        BookingRequest request = new BookingRequest();
+        request.setPropertyId(1L);
+        request.setCheckInDate(LocalDate.now().plusDays(1));
+        request.setCheckOutDate(LocalDate.now().plusDays(3));
+
+        when(propertyRepository.findByIdForBooking(1L)).thenReturn(Optional.of(property));
+        when(userRepository.findByEmail("buyer@test.com")).thenReturn(Optional.of(user));
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.hasOverlap(eq(1L), eq(5L), any(), any())).thenReturn(true);
+
+        assertThrows(ResponseStatusException.class, () -> bookingService.createBooking(request, "buyer@test.com"));
+        verify(bookingRepository, never()).existsOverlappingBooking(anyLong(), any(), any(), anyList());
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void createBooking_whenIndexFindsNoClash_insertsWithoutCountQuery() {
+        Property property = new Property("Lake View", "Hyderabad", 2000.0);
+        property.setId(1L);
+        property.setVersion(5L);
+        property.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+        User user = new User("buyer@test.com", "pass", "Buyer", Role.USER);
+
+        BookingRequest request = new BookingRequest();
+        request.setPropertyId(1L);
+        request.setCheckInDate(LocalDate.now().plusDays(1));
+        request.setCheckOutDate(LocalDate.now().plusDays(3));
+
+        when(propertyRepository.findByIdForBooking(1L)).thenReturn(Optional.of(property));
+        when(userRepository.findByEmail("buyer@test.com")).thenReturn(Optional.of(user));
+        when(availabilityIndex.isReady()).thenReturn(true);
+        when(availabilityIndex.hasOverlap(eq(1L), eq(5L), any(), any())).thenReturn(false);
+        when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        bookingService.createBooking(request, "buyer@test.com");
+
+        verify(bookingRepository, never()).existsOverlappingBooking(anyLong(), any(), any(), anyList());
+        verify(bookingRepository).save(any(Booking.class));
+        assertEquals(1, meterRegistry.get("rental.booking.overlap").tag("source", "index").timer().count());
+    }
+
+    @Test
+    void createBookings_rejectsConflictsInsideBatchAndAgainstExistingStays() {
+        Property lake = new Property("Lake View", "Hyderabad", 2000.0);
+        lake.setId(1L);
+        lake.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+        Property pending = new Property("Hill Top", "Ooty", 1500.0);
+        pending.setId(2L);
+        User user = new User("buyer@test.com", "pass", "Buyer", Role.USER);
+        LocalDate start = LocalDate.now().plusDays(10);
+
+        List<BookingRequest> requests = List.of(
+                bookingRequest(1L, start, start.plusDays(2)),
+                bookingRequest(1L, start.plusDays(1), start.plusDays(3)),
+                bookingRequest(1L, start.plusDays(5), start.plusDays(6)),
+                bookingRequest(2L, start, start.plusDays(1)),
+                bookingRequest(1L, start.plusDays(4), start.plusDays(3))
+        );
+        when(userRepository.findByEmail("buyer@test.com")).thenReturn(Optional.of(user));
+        when(propertyRepository.findAllByIdForBooking(Set.of(1L, 2L))).thenReturn(List.of(lake, pending));
+        // Only the third request collides with a stay that is already booked.
+        Booking booked = new Booking();
+        booked.setProperty(lake);
+        booked.setCheckInDate(start.plusDays(5));
+        booked.setCheckOutDate(start.plusDays(6));
+        when(bookingRepository.findStaysIntersecting(any(), any(), any(), anyList())).thenReturn(List.of(booked));
+
+        BookingBatchResponse response = bookingService.createBookings(requests, "buyer@test.com");
+
+        assertEquals(1, response.getAcceptedCount());
+        assertEquals(4, response.getRejectedCount());
+        assertTrue(response.getResults().get(0).isAccepted());
+        assertEquals(4000.0, response.getResults().get(0).getBooking().getTotalAmount());
+        assertEquals("Property already booked for selected dates", response.getResults().get(1).getError());
+        assertEquals("Property already booked for selected dates", response.getResults().get(2).getError());
+        assertEquals("Property is not approved for booking", response.getResults().get(3).getError());
+        assertEquals("Checkout must be after check-in", response.getResults().get(4).getError());
+        verify(bookingRepository).saveAll(argThat(saved -> ((List<?>) saved).size() == 1));
+        verify(availabilityIndex, times(1)).apply(eq(1L), anyLong(), argThat(saved -> saved.size() == 1));
     }
 
     @Test
@@ -93,9 +229,58 @@ class BookingServiceTest {
         booking.setUser(owner);
         booking.setStatus(Booking.BookingStatus.REQUESTED);
 
-        when(bookingRepository.findById(55L)).thenReturn(Optional.of(booking));
+        when(bookingRepository.findByIdForUpdate(55L)).thenReturn(Optional.of(booking));
 
         assertThrows(ResponseStatusException.class, () -> bookingService.cancelBooking(55L, "other@test.com", false));
         verify(bookingRepository, never()).save(any());
     }
+
+    @Test
+    void propertyCalendar_answersFromIndexAtTheDatabaseVersion() {
+        LocalDate from = LocalDate.of(2030, 6, 1);
+        LocalDate to = from.plusDays(30);
+        when(propertyRepository.findVersionById(8L)).thenReturn(Optional.of(42L));
+        when(availabilityIndex.occupancy(8L, 42L, from, to)).thenReturn(new BookingAvailabilityIndex.Occupancy(
+                42L, 7L, List.of(new BookedRange(from.plusDays(3), from.plusDays(6)))));
+
+        BookingService.OccupancyCalendar calendar = bookingService.propertyCalendar(8L, from, to);
+
+        assertEquals("\"8-42-2030-06-01-2030-07-01\"", calendar.etag());
+        assertEquals(1, calendar.body().getBooked().size());
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void propertyCalendar_etagDependsOnTheWindow() {
+        LocalDate from = LocalDate.of(2030, 6, 1);
+        when(propertyRepository.findVersionById(8L)).thenReturn(Optional.of(42L));
+        when(availabilityIndex.occupancy(eq(8L), eq(42L), any(), any()))
+                .thenReturn(new BookingAvailabilityIndex.Occupancy(42L, 7L, List.of()));
+
+        String june = bookingService.propertyCalendar(8L, from, from.plusDays(30)).etag();
+        String nextDay = bookingService.propertyCalendar(8L, from.plusDays(1), from.plusDays(31)).etag();
+        String defaultWindow = bookingService.propertyCalendar(8L, null, null).etag();
+
+        assertNotEquals(june, nextDay);
+        assertNotEquals(june, defaultWindow);
+        assertTrue(defaultWindow.contains(LocalDate.now().toString()));
+    }
+
+    @Test
+    void propertyCalendar_rejectsEmptyAndOversizedRanges() {
+        LocalDate from = LocalDate.of(2030, 6, 1);
+
+        assertThrows(ResponseStatusException.class, () -> bookingService.propertyCalendar(8L, from, from));
+        assertThrows(ResponseStatusException.class,
+                () -> bookingService.propertyCalendar(8L, from, from.plusDays(BookingService.MAX_CALENDAR_DAYS + 1)));
+        verifyNoInteractions(propertyRepository);
+    }
+
+    private static BookingRequest bookingRequest(Long propertyId, LocalDate checkIn, LocalDate checkOut) {
+        BookingRequest request = new BookingRequest();
+        request.setPropertyId(propertyId);
+        request.setCheckInDate(checkIn);
+        request.setCheckOutDate(checkOut);
+        return request;
+    }
 }
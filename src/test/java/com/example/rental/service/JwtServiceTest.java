@@ -0,0 +1,34 @@
+package com.example.rental.service;
+
+import com.example.rental.model.Role;
+import com.example.rental.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private final JwtService jwtService = new JwtService();
+    private final User user = new User("guest@test.com", "pass", "Guest", Role.HOST);
+
+    @Test
+    void verify_returnsClaimsOfGeneratedToken() {
+        String token = jwtService.generateToken(user);
+
+        Claims claims = jwtService.verify(token);
+
+        assertEquals("guest@test.com", claims.getSubject());
+        assertEquals("ROLE_HOST", jwtService.extractRole(claims));
+        assertTrue(jwtService.isTokenValid(claims, user));
+    }
+
+    @Test
+    void verify_rejectsTamperedToken() {
+        String token = jwtService.generateToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtService.verify(tampered));
+    }
+}
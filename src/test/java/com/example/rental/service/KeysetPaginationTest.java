@@ -0,0 +1,110 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.BookingResponse;
+import com.example.rental.dto.CursorResponse;
+import com.example.rental.dto.PropertyResponse;
+import com.example.rental.model.Booking;
+import com.example.rental.model.Booking.BookingStatus;
+import com.example.rental.model.Property;
+import com.example.rental.model.Role;
+import com.example.rental.model.User;
+import com.example.rental.repo.BookingRepository;
+import com.example.rental.repo.PropertyRepository;
+import com.example.rental.repo.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class KeysetPaginationTest {
+
+    @Autowired
+    private PropertyService propertyService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private PropertyRepository propertyRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PropertySearchIndex searchIndex;
+
+    @Test
+    void searchWindows_walkEveryMatchOnceInSortOrder() {
+        List<Property> saved = new ArrayList<>();
+        double[] prices = {900, 1200, 1200, 1200, 4000, 2500, 700};
+        for (int i = 0; i < prices.length; i++) {
+            Property property = new Property("Keyset Villa " + i, "Keyset Bay", prices[i]);
+            property.setAvailable(true);
+            property.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+            saved.add(propertyRepository.save(property));
+            searchIndex.upsert(saved.get(i));
+        }
+        List<Long> expected = saved.stream()
+                .sorted(Comparator.comparing(Property::getPrice).thenComparing(Property::getId))
+                .map(Property::getId)
+                .toList();
+
+        // Full-text query goes through the index; a price-only filter goes through the database.
+        assertEquals(expected, walkSearch("keyset bay", null));
+        assertEquals(expected, walkSearch(null, 0.0).stream().filter(expected::contains).toList());
+    }
+
+    @Test
+    void bookingWindows_pageNewestFirstWithoutGaps() {
+        User guest = userRepository.save(new User("keyset-guest@test.com", "pass", "Guest", Role.USER));
+        Property property = new Property("Keyset Cabin", "Ooty", 1000.0);
+        property.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+        property = propertyRepository.save(property);
+        LocalDateTime sameInstant = LocalDateTime.of(2030, 1, 1, 12, 0);
+        for (int i = 0; i < 5; i++) {
+            Booking booking = new Booking();
+            booking.setProperty(property);
+            booking.setUser(guest);
+            booking.setCheckInDate(LocalDate.of(2030, 2, 1).plusDays(i * 3L));
+            booking.setCheckOutDate(LocalDate.of(2030, 2, 2).plusDays(i * 3L));
+            booking.setTotalAmount(1000.0);
+            booking.setStatus(BookingStatus.REQUESTED);
+            booking.setCreatedAt(i < 3 ? sameInstant : sameInstant.plusDays(i));
+            bookingRepository.save(booking);
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorResponse<BookingResponse> window = bookingService.getMyBookingsWindow(guest.getEmail(), cursor, 2);
+            window.getItems().forEach(item -> seen.add(item.getId()));
+            cursor = window.getNextCursor();
+        } while (cursor != null);
+
+        List<Long> expected = bookingService.getMyBookings(guest.getEmail()).stream()
+                .sorted(Comparator.comparing(BookingResponse::getCreatedAt).thenComparing(BookingResponse::getId).reversed())
+                .map(BookingResponse::getId)
+                .toList();
+        assertEquals(expected, seen);
+    }
+
+    private List<Long> walkSearch(String query, Double minPrice) {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorResponse<PropertyResponse> window = propertyService.searchApprovedWindow(
+                    query, minPrice, null, null, null, null, cursor, 3, "price", "asc"
+            );
+            assertTrue(window.getItems().size() <= 3);
+            window.getItems().forEach(item -> seen.add(item.getId()));
+            cursor = window.getNextCursor();
+        } while (cursor != null);
+        return seen;
+    }
+}
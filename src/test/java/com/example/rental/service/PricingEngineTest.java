@@ -0,0 +1,157 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.BookingRequest;
+import com.example.rental.dto.BookingResponse;
+import com.example.rental.dto.PriceQuoteResponse;
+import com.example.rental.dto.PricingRuleRequest;
+import com.example.rental.model.Booking;
+import com.example.rental.model.PricingRule;
+import com.example.rental.model.Property;
+import com.example.rental.model.Role;
+import com.example.rental.model.User;
+import com.example.rental.repo.BookingRepository;
+import com.example.rental.repo.PropertyRepository;
+import com.example.rental.repo.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PricingEngineTest {
+
+    @Autowired
+    private PricingEngine pricing;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private PropertyRepository propertyRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User host;
+    private User guest;
+    private Property property;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = String.valueOf(System.nanoTime());
+        host = userRepository.save(new User("pricing-host-" + suffix + "@test.com", "pass", "Host", Role.HOST));
+        guest = userRepository.save(new User("pricing-guest-" + suffix + "@test.com", "pass", "Guest", Role.USER));
+        property = new Property("Priced Villa " + suffix, "Rate Bay", 1000.0);
+        property.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+        property.setCreatedBy(host);
+        property = propertyRepository.save(property);
+    }
+
+    @Test
+    void replacedRules_priceQuotesAndBookings() {
+        LocalDate checkIn = LocalDate.now().plusDays(30);
+        LocalDate checkOut = checkIn.plusDays(7);
+        assertEquals(7000.0, pricing.quote(property.getId(), checkIn, checkOut).getTotalAmount());
+
+        PricingRuleRequest lengthOfStay = rule(PricingRule.Type.LENGTH_OF_STAY, 0.9);
+        lengthOfStay.setMinNights(7);
+        pricing.replaceRules(property.getId(), List.of(rule(PricingRule.Type.WEEKEND, 1.5), lengthOfStay),
+                host.getEmail(), false);
+
+        // Any seven nights hold one Friday and one Saturday.
+        PriceQuoteResponse quote = pricing.quote(property.getId(), checkIn, checkOut);
+        assertEquals(8000.0, quote.getSubtotal());
+        assertEquals(7200.0, quote.getTotalAmount());
+        assertEquals(2, pricing.rules(property.getId()).size());
+
+        BookingResponse booking = bookingService.createBooking(request(checkIn, checkOut), guest.getEmail());
+        assertEquals(7200.0, booking.getTotalAmount());
+    }
+
+    @Test
+    void occupancyRules_followNewBookings() {
+        LocalDate monthStart = LocalDate.now().plusMonths(3).withDayOfMonth(1);
+        PricingRuleRequest busy = rule(PricingRule.Type.OCCUPANCY, 2.0);
+        busy.setThreshold(0.01);
+        pricing.replaceRules(property.getId(), List.of(busy), host.getEmail(), false);
+        long rulesCompiled = meterRegistry.get("rental.pricing.compile").tag("scope", "rules").timer().count();
+        assertEquals(2000.0, pricing.quote(property.getId(), monthStart.plusDays(10), monthStart.plusDays(12)).getTotalAmount());
+
+        bookingService.createBooking(request(monthStart, monthStart.plusDays(1)), guest.getEmail());
+
+        assertEquals(4000.0, pricing.quote(property.getId(), monthStart.plusDays(10), monthStart.plusDays(12)).getTotalAmount());
+        // The booking re-priced the cached plan instead of recompiling it from its rules.
+        assertEquals(1, meterRegistry.get("rental.pricing.compile").tag("scope", "rules").timer().count() - rulesCompiled);
+    }
+
+    @Test
+    void occupancyRules_followBookingsMadeOnAnotherInstance() {
+        LocalDate monthStart = LocalDate.now().plusMonths(3).withDayOfMonth(1);
+        PricingRuleRequest busy = rule(PricingRule.Type.OCCUPANCY, 2.0);
+        busy.setThreshold(0.01);
+        pricing.replaceRules(property.getId(), List.of(busy), host.getEmail(), false);
+        assertEquals(2000.0, pricing.quote(property.getId(), monthStart.plusDays(10), monthStart.plusDays(12)).getTotalAmount());
+
+        // What a booking committed by another instance leaves behind: this instance's index never sees it.
+        Booking elsewhere = new Booking();
+        elsewhere.setProperty(property);
+        elsewhere.setUser(guest);
+        elsewhere.setCheckInDate(monthStart);
+        elsewhere.setCheckOutDate(monthStart.plusDays(1));
+        elsewhere.setTotalAmount(1000.0);
+        elsewhere.setStatus(Booking.BookingStatus.CONFIRMED);
+        bookingRepository.save(elsewhere);
+        jdbcTemplate.update("update property set version = version + 1 where id = ?", property.getId());
+
+        assertEquals(4000.0, pricing.quote(property.getId(), monthStart.plusDays(10), monthStart.plusDays(12)).getTotalAmount());
+    }
+
+    @Test
+    void otherHosts_cannotReplaceRules() {
+        User otherHost = userRepository.save(new User("pricing-other-" + System.nanoTime() + "@test.com",
+                "pass", "Other", Role.HOST));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> pricing.replaceRules(
+                property.getId(), List.of(rule(PricingRule.Type.WEEKEND, 2.0)), otherHost.getEmail(), false));
+        assertEquals(HttpStatus.FORBIDDEN, ex.getStatusCode());
+        assertTrue(pricing.rules(property.getId()).isEmpty());
+    }
+
+    @Test
+    void invalidRules_areRejected() {
+        PricingRuleRequest season = rule(PricingRule.Type.SEASON, 1.2);
+        season.setStartDate(LocalDate.now().plusDays(10));
+        season.setEndDate(LocalDate.now().plusDays(5));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> pricing.replaceRules(property.getId(), List.of(season), host.getEmail(), false));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+    }
+
+    private static PricingRuleRequest rule(PricingRule.Type type, double multiplier) {
+        PricingRuleRequest request = new PricingRuleRequest();
+        request.setType(type);
+        request.setMultiplier(multiplier);
+        return request;
+    }
+
+    private BookingRequest request(LocalDate checkIn, LocalDate checkOut) {
+        BookingRequest request = new BookingRequest();
+        request.setPropertyId(property.getId());
+        request.setCheckInDate(checkIn);
+        request.setCheckOutDate(checkOut);
+        return request;
+    }
+}
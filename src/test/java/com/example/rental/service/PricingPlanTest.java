@@ -0,0 +1,133 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.BookedRange;
+import com.example.rental.model.PricingRule;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingPlanTest {
+    // A Monday.
+    private static final LocalDate START = LocalDate.of(2030, 1, 7);
+
+    @Test
+    void noRules_pricesNightsAtTheBasePrice() {
+        PricingPlan plan = compile(List.of(), 365);
+
+        PricingPlan.Quote quote = plan.quote(START, START.plusDays(3));
+
+        assertEquals(3, quote.nights());
+        assertEquals(300.0, quote.totalAmount());
+        assertEquals(1.0, quote.lengthOfStayMultiplier());
+    }
+
+    @Test
+    void weekendAndSeasonRules_multiplyTheNightsTheyCover() {
+        PricingRule season = rule(PricingRule.Type.SEASON, 2.0);
+        season.setStartDate(START.plusDays(2));
+        season.setEndDate(START.plusDays(2));
+        PricingPlan plan = compile(List.of(rule(PricingRule.Type.WEEKEND, 1.5), season), 365);
+
+        // Five weeknights at 100, Wednesday doubled, Friday and Saturday at 150.
+        assertEquals(900.0, plan.quote(START, START.plusDays(7)).totalAmount());
+        assertEquals(300.0, plan.quote(START.plusDays(4), START.plusDays(6)).totalAmount());
+    }
+
+    @Test
+    void lengthOfStay_appliesTheLongestRuleReached() {
+        PricingRule week = rule(PricingRule.Type.LENGTH_OF_STAY, 0.9);
+        week.setMinNights(7);
+        PricingRule month = rule(PricingRule.Type.LENGTH_OF_STAY, 0.8);
+        month.setMinNights(28);
+        PricingPlan plan = compile(List.of(month, week), 365);
+
+        assertEquals(1.0, plan.quote(START, START.plusDays(6)).lengthOfStayMultiplier());
+        PricingPlan.Quote weekStay = plan.quote(START, START.plusDays(7));
+        assertEquals(0.9, weekStay.lengthOfStayMultiplier());
+        assertEquals(700.0, weekStay.subtotal());
+        assertEquals(630.0, weekStay.totalAmount());
+        assertEquals(2400.0, plan.quote(START, START.plusDays(30)).totalAmount());
+    }
+
+    @Test
+    void occupancy_raisesMonthsWhoseBookedShareReachesTheThreshold() {
+        PricingRule busy = rule(PricingRule.Type.OCCUPANCY, 1.2);
+        busy.setThreshold(0.5);
+        PricingRule full = rule(PricingRule.Type.OCCUPANCY, 1.5);
+        full.setThreshold(0.9);
+        // 15 of February's 28 nights booked: past the first threshold, short of the second.
+        List<BookedRange> booked = List.of(new BookedRange(LocalDate.of(2030, 2, 1), LocalDate.of(2030, 2, 16)));
+        PricingPlan plan = PricingPlan.compile(1L, 100.0, List.of(busy, full), START, 365, booked, 3);
+
+        assertTrue(plan.usesOccupancy());
+        assertEquals(3, plan.occupancyVersion());
+        assertEquals(440.0, plan.quote(LocalDate.of(2030, 1, 30), LocalDate.of(2030, 2, 3)).totalAmount());
+    }
+
+    @Test
+    void withOccupancy_matchesARecompileAtTheNewBookings() {
+        PricingRule busy = rule(PricingRule.Type.OCCUPANCY, 1.2);
+        busy.setThreshold(0.5);
+        PricingRule season = rule(PricingRule.Type.SEASON, 1.25);
+        season.setStartDate(LocalDate.of(2030, 3, 10));
+        season.setEndDate(LocalDate.of(2030, 4, 20));
+        List<PricingRule> rules = List.of(busy, season, rule(PricingRule.Type.WEEKEND, 1.1));
+        List<BookedRange> before = List.of(new BookedRange(LocalDate.of(2030, 2, 1), LocalDate.of(2030, 2, 16)));
+        List<BookedRange> after = List.of(
+                new BookedRange(LocalDate.of(2030, 2, 1), LocalDate.of(2030, 2, 3)),
+                new BookedRange(LocalDate.of(2030, 4, 1), LocalDate.of(2030, 4, 20)));
+
+        PricingPlan patched = PricingPlan.compile(1L, 100.0, rules, START, 365, before, 3).withOccupancy(after, 4);
+        PricingPlan compiled = PricingPlan.compile(1L, 100.0, rules, START, 365, after, 4);
+
+        assertEquals(4, patched.occupancyVersion());
+        for (int from = 0; from < 200; from += 7) {
+            LocalDate checkIn = START.plusDays(from);
+            assertEquals(compiled.quote(checkIn, checkIn.plusDays(30)), patched.quote(checkIn, checkIn.plusDays(30)));
+        }
+    }
+
+    @Test
+    void withOccupancy_pricesAPlanThatHadNoRateTable() {
+        PricingRule busy = rule(PricingRule.Type.OCCUPANCY, 2.0);
+        busy.setThreshold(0.01);
+        PricingPlan empty = PricingPlan.compile(1L, 100.0, List.of(busy), START, 365, List.of(), 1);
+
+        PricingPlan patched = empty.withOccupancy(
+                List.of(new BookedRange(LocalDate.of(2030, 2, 1), LocalDate.of(2030, 2, 2))), 2);
+
+        assertEquals(200.0, empty.quote(LocalDate.of(2030, 2, 10), LocalDate.of(2030, 2, 12)).totalAmount());
+        assertEquals(400.0, patched.quote(LocalDate.of(2030, 2, 10), LocalDate.of(2030, 2, 12)).totalAmount());
+    }
+
+    @Test
+    void staysPastTheHorizon_matchTheRateTable() {
+        PricingRule season = rule(PricingRule.Type.SEASON, 1.25);
+        season.setStartDate(START.plusDays(20));
+        season.setEndDate(START.plusDays(40));
+        List<PricingRule> rules = List.of(rule(PricingRule.Type.WEEKEND, 1.1), season);
+        PricingPlan shortHorizon = compile(rules, 30);
+        PricingPlan longHorizon = compile(rules, 365);
+
+        for (int from = 0; from < 45; from += 3) {
+            LocalDate checkIn = START.plusDays(from);
+            LocalDate checkOut = checkIn.plusDays(10);
+            assertEquals(longHorizon.quote(checkIn, checkOut), shortHorizon.quote(checkIn, checkOut));
+        }
+        assertFalse(longHorizon.usesOccupancy());
+    }
+
+    private static PricingPlan compile(List<PricingRule> rules, int horizonDays) {
+        return PricingPlan.compile(1L, 100.0, rules, START, horizonDays, List.of(), PricingPlan.NO_OCCUPANCY);
+    }
+
+    private static PricingRule rule(PricingRule.Type type, double multiplier) {
+        PricingRule rule = new PricingRule();
+        rule.setType(type);
+        rule.setMultiplier(multiplier);
+        return rule;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.rental.service;
+
+import com.example.rental.dto.PropertyResponse;
+import com.example.rental.model.Property;
+import com.example.rental.model.Property.ApprovalStatus;
+import com.example.rental.repo.PropertyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PropertyListingsCacheTest {
+
+    private final PropertyRepository repository = mock(PropertyRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PropertyListingsCache cache = new PropertyListingsCache(repository, new ObjectMapper(), meterRegistry);
+
+    @Test
+    void get_servesRepeatRequestsFromCache() {
+        when(repository.findResponsesByApprovalStatus(ApprovalStatus.APPROVED))
+                .thenReturn(List.of(PropertyResponse.from(approved(1L, "Lake View"))));
+
+        PropertyListingsCache.Snapshot first = cache.get(PropertyListingsCache.Listing.APPROVED);
+        PropertyListingsCache.Snapshot second = cache.get(PropertyListingsCache.Listing.APPROVED);
+
+        assertSame(first, second);
+        assertTrue(new String(first.body(), StandardCharsets.UTF_8).contains("\"name\":\"Lake View\""));
+        verify(repository, times(1)).findResponsesByApprovalStatus(ApprovalStatus.APPROVED);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void onPropertyChanged_rebuildsWithNewEtag() {
+        Property lake = approved(1L, "Lake View");
+        Property hill = approved(2L, "Hill Top");
+        when(repository.findResponsesByApprovalStatus(ApprovalStatus.APPROVED))
+                .thenReturn(List.of(PropertyResponse.from(lake)))
+                .thenReturn(List.of(PropertyResponse.from(lake), PropertyResponse.from(hill)));
+
+        String before = cache.get(PropertyListingsCache.Listing.APPROVED).etag();
+        cache.onPropertyChanged(new PropertyChangedEvent(hill));
+        String after = cache.get(PropertyListingsCache.Listing.APPROVED).etag();
+
+        assertNotEquals(before, after);
+        verify(repository, times(2)).findResponsesByApprovalStatus(ApprovalStatus.APPROVED);
+    }
+
+    private static Property approved(Long id, String name) {
+        Property property = new Property(name, "Hyderabad", 2000.0);
+        property.setId(id);
+        property.setApprovalStatus(ApprovalStatus.APPROVED);
+        return property;
+    }
+}
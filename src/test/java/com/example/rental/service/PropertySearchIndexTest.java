@@ -0,0 +1,157 @@
+package com.example.rental.service;
+
+import com.example.rental.model.Property;
+import com.example.rental.model.Property.ApprovalStatus;
+import com.example.rental.repo.PropertyRepository;
+import com.example.rental.repo.PropertySearchRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PropertySearchIndexTest {
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private PropertyRepository repository;
+    private PropertySearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(PropertyRepository.class);
+        index = new PropertySearchIndex(repository, Duration.ofMinutes(1));
+        index.upsert(approved(1L, "Lake View", "Hyderabad", 2000.0, true));
+        index.upsert(approved(2L, "City Loft", "Lakeshore", 3500.0, true));
+        index.upsert(approved(3L, "Hill Cabin", "Ooty", 1500.0, false));
+        index.upsert(approved(4L, "Lake", "Goa", 4000.0, true));
+    }
+
+    @Test
+    void search_matchesSubstringsOfNameOrLocation() {
+        assertEquals(List.of(4L, 2L, 1L), ids("LAKE", null, null, null, Sort.by(Sort.Direction.DESC, "id")));
+        assertEquals(List.of(3L), ids("l cab", null, null, null, Sort.by("id")));
+        assertEquals(List.of(), ids("beach", null, null, null, Sort.by("id")));
+    }
+
+    @Test
+    void search_appliesFiltersAndRelevance() {
+        assertEquals(List.of(4L, 1L, 2L), ids("lake", null, null, null, Sort.by(Sort.Direction.DESC, "relevance")));
+        assertEquals(List.of(1L, 2L), ids("lake", 1000.0, 3500.0, true, Sort.by("price")));
+    }
+
+    @Test
+    void upsert_removesPropertiesThatAreNoLongerApproved() {
+        Property rejected = approved(4L, "Lake", "Goa", 4000.0, true);
+        rejected.setApprovalStatus(ApprovalStatus.REJECTED);
+
+        index.upsert(rejected);
+
+        assertEquals(List.of(1L, 2L), ids("lake", null, null, null, Sort.by("id")));
+    }
+
+    @Test
+    void search_pagesResultsAndReportsTotal() {
+        Page<Long> page = index.search("a", null, null, null, PageRequest.of(1, 2, Sort.by("id")));
+
+        assertEquals(List.of(3L, 4L), page.getContent());
+        assertEquals(4, page.getTotalElements());
+    }
+
+    @Test
+    void search_shortQueriesMatchOnlyPropertiesContainingThem() {
+        assertEquals(List.of(3L), ids("oo", null, null, null, Sort.by("id")));
+        assertEquals(List.of(2L, 3L), ids("c", null, null, null, Sort.by("id")));
+        assertEquals(List.of(), ids("z", null, null, null, Sort.by("id")));
+    }
+
+    @Test
+    void searchAfter_walksAllHitsInWindows() {
+        Sort byPrice = Sort.by(Sort.Direction.DESC, "price");
+
+        Slice<PropertySearchIndex.Hit> first = index.searchAfter("a", null, null, null, byPrice, null, 3);
+        PropertySearchIndex.Hit last = first.getContent().get(2);
+        Slice<PropertySearchIndex.Hit> second = index.searchAfter("a", null, null, null, byPrice,
+                new KeysetCursor(last.sortValue().toString(), last.id()), 3);
+
+        assertEquals(List.of(4L, 2L, 1L), first.stream().map(PropertySearchIndex.Hit::id).toList());
+        assertTrue(first.hasNext());
+        assertEquals(List.of(3L), second.stream().map(PropertySearchIndex.Hit::id).toList());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void warm_readsApprovedRowsPageByPage() {
+        List<PropertySearchRow> firstPage = new ArrayList<>();
+        for (long id = 10; id < 1010; id++) {
+            firstPage.add(new PropertySearchRow(id, 0L, "Flat " + id, "Pune", 1000.0, true, ApprovalStatus.APPROVED, NOW));
+        }
+        when(repository.findSearchRowsByApprovalStatus(eq(ApprovalStatus.APPROVED), eq(0L), any()))
+                .thenReturn(firstPage);
+        when(repository.findSearchRowsByApprovalStatus(eq(ApprovalStatus.APPROVED), eq(1009L), any()))
+                .thenReturn(List.of(new PropertySearchRow(1500L, 0L, "Lake Hut", "Pune", 800.0, true,
+                        ApprovalStatus.APPROVED, NOW)));
+
+        index.warm();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(1L, 2L, 4L, 1500L), ids("lake", null, null, null, Sort.by("id")));
+        assertEquals(1001, index.search("pune", null, null, null, PageRequest.of(0, 1)).getTotalElements());
+    }
+
+    @Test
+    void refresh_reloadsPropertiesUpdatedSinceThePreviousPass() {
+        index.warm();
+        when(repository.findSearchRowsUpdatedSince(any(), eq(0L), any())).thenReturn(List.of(
+                new PropertySearchRow(1L, 5L, "Lake View", "Hyderabad", 900.0, true, ApprovalStatus.APPROVED, NOW),
+                new PropertySearchRow(4L, 3L, "Lake", "Goa", 4000.0, false, ApprovalStatus.REJECTED, NOW)));
+
+        index.refresh();
+
+        assertEquals(List.of(1L, 2L), ids("lake", null, null, null, Sort.by("id")));
+        assertEquals(List.of(1L), ids("lake", null, 1000.0, null, Sort.by("id")));
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).findSearchRowsUpdatedSince(since.capture(), eq(0L), any());
+        assertTrue(since.getValue().isBefore(LocalDateTime.now().minusSeconds(59)));
+    }
+
+    @Test
+    void upsert_ignoresCopiesOlderThanTheIndexedOne() {
+        Property current = approved(1L, "Lake View", "Hyderabad", 2000.0, true);
+        current.setVersion(7L);
+        Property older = approved(1L, "Lake View", "Hyderabad", 900.0, true);
+        older.setVersion(6L);
+
+        index.upsert(current);
+        index.upsert(older);
+
+        assertEquals(List.of(), ids("lake", null, 1000.0, null, Sort.by("id")));
+    }
+
+    private List<Long> ids(String query, Double minPrice, Double maxPrice, Boolean available, Sort sort) {
+        return index.search(query, minPrice, maxPrice, available, PageRequest.of(0, 10, sort)).getContent();
+    }
+
+    private Property approved(Long id, String name, String location, Double price, boolean available) {
+        Property property = new Property(name, location, price);
+        property.setId(id);
+        property.setAvailable(available);
+        property.setApprovalStatus(ApprovalStatus.APPROVED);
+        return property;
+    }
+}
@@ -1,24 +1,37 @@
 package com.example.rental.service;
 
+import com.example.rental.dto.ModerationSummary;
 import com.example.rental.dto.PagedResponse;
+import com.example.rental.dto.PropertyModerationRequest;
+import com.example.rental.dto.PropertyResponse;
 import com.example.rental.model.Property;
 import com.example.rental.model.Role;
 import com.example.rental.model.User;
 import com.example.rental.repo.PropertyRepository;
 import com.example.rental.repo.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -29,6 +42,16 @@ class PropertyServiceTest {
     private PropertyRepository propertyRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private PropertySearchIndex searchIndex;
+    @Mock
+    private StreamingExporter exporter;
+    @Mock
+    private PropertyListingsCache listingsCache;
+    @Mock
+    private ApplicationEventPublisher events;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @InjectMocks
     private PropertyService propertyService;
@@ -42,27 +65,173 @@ class PropertyServiceTest {
         when(userRepository.findByEmail("host@test.com")).thenReturn(Optional.of(host));
         when(propertyRepository.save(any(Property.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        Property saved = propertyService.add(property, "host@test.com");
+        PropertyResponse saved = propertyService.add(property, "host@test.com");
 
         assertEquals(Property.ApprovalStatus.PENDING, saved.getApprovalStatus());
-        assertEquals("host@test.com", saved.getCreatedBy().getEmail());
+        assertEquals(7L, saved.getHostId());
+        assertEquals(host, property.getCreatedBy());
     }
 
     @Test
     void searchApproved_returnsPagedResponse() {
-        Property one = new Property("Lake View", "Hyderabad", 2000.0);
-        Page<Property> page = new PageImpl<>(List.of(one));
+        PropertyResponse one = PropertyResponse.from(new Property("Lake View", "Hyderabad", 2000.0));
+        Page<PropertyResponse> page = new PageImpl<>(List.of(one));
 
         when(propertyRepository.searchApproved(
-                any(), any(), any(), any(), any(), any(Pageable.class)
+                any(), any(), any(), any(), any(), any(), any(), any(), any(Pageable.class)
         )).thenReturn(page);
 
-        PagedResponse<Property> response = propertyService.searchApproved(
-                "lake", 1000.0, 3000.0, true, 0, 6, "price", "asc"
+        PagedResponse<PropertyResponse> response = propertyService.searchApproved(
+                "lake", 1000.0, 3000.0, true, null, null, 0, 6, "price", "asc"
         );
 
         assertEquals(1, response.getItems().size());
         assertEquals(0, response.getPage());
         assertEquals(1, response.getTotalItems());
     }
+
+    @Test
+    void searchApproved_whenIndexReady_hydratesRankedIdsInOrder() {
+        PropertyResponse first = response(4L, "Lake View");
+        PropertyResponse second = response(9L, "Lakeside Villa");
+
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search(eq("lake"), any(), any(), any(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(9L, 4L), PageRequest.of(0, 6), 2));
+        when(propertyRepository.findResponsesByIdIn(List.of(9L, 4L))).thenReturn(List.of(first, second));
+
+        PagedResponse<PropertyResponse> response = propertyService.searchApproved(
+                "lake", null, null, null, null, null, 0, 6, "relevance", "desc"
+        );
+
+        assertEquals(List.of(second, first), response.getItems());
+        assertEquals(2, response.getTotalItems());
+        verify(propertyRepository, never())
+                .searchApproved(any(), any(), any(), any(), any(), any(), any(), any(), any(Pageable.class));
+    }
+
+    @Test
+    void searchApproved_withDates_usesDatabaseEvenWhenIndexReady() {
+        LocalDate checkIn = LocalDate.of(2030, 5, 1);
+        LocalDate checkOut = LocalDate.of(2030, 5, 4);
+        PropertyResponse free = response(4L, "Lake View");
+        when(propertyRepository.searchApproved(
+                any(), eq("lake"), any(), any(), any(), eq(checkIn), eq(checkOut), any(), any(Pageable.class)
+        )).thenReturn(new PageImpl<>(List.of(free)));
+
+        PagedResponse<PropertyResponse> response = propertyService.searchApproved(
+                "lake", null, null, null, checkIn, checkOut, 0, 6, "relevance", "desc"
+        );
+
+        assertEquals(List.of(free), response.getItems());
+        verifyNoInteractions(searchIndex);
+        assertEquals(1, meterRegistry.get("rental.property.search")
+                .tags("path", "database", "paging", "offset", "filters", "query+dates")
+                .timer().count());
+    }
+
+    @Test
+    void searchApproved_rejectsIncompleteOrInvertedStay() {
+        LocalDate day = LocalDate.of(2030, 5, 1);
+
+        ResponseStatusException missing = assertThrows(ResponseStatusException.class,
+                () -> propertyService.searchApproved(null, null, null, null, day, null, 0, 6, "id", "desc"));
+        ResponseStatusException inverted = assertThrows(ResponseStatusException.class,
+                () -> propertyService.searchApproved(null, null, null, null, day, day, 0, 6, "id", "desc"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, missing.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, inverted.getStatusCode());
+    }
+
+    @Test
+    void searchApproved_rejectsNonPositiveSizeAndCapsLargeOnes() {
+        when(propertyRepository.searchApproved(
+                any(), any(), any(), any(), any(), any(), any(), any(), any(Pageable.class)
+        )).thenReturn(Page.empty());
+
+        ResponseStatusException zero = assertThrows(ResponseStatusException.class,
+                () -> propertyService.searchApproved(null, null, null, null, null, null, 0, 0, "id", "desc"));
+        ResponseStatusException window = assertThrows(ResponseStatusException.class,
+                () -> propertyService.searchApprovedWindow(null, null, null, null, null, null, null, -1, "id", "desc"));
+        propertyService.searchApproved(null, null, null, null, null, null, 0, Integer.MAX_VALUE, "id", "desc");
+
+        assertEquals(HttpStatus.BAD_REQUEST, zero.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, window.getStatusCode());
+        verify(propertyRepository).searchApproved(any(), any(), any(), any(), any(), any(), any(), any(),
+                argThat(pageable -> pageable.getPageSize() == PageSizes.MAX));
+    }
+
+    @Test
+    void approve_publishesPropertyChangedEvent() {
+        Property property = new Property("Lake View", "Hyderabad", 2000.0);
+        property.setId(3L);
+        when(propertyRepository.findById(3L)).thenReturn(Optional.of(property));
+        when(propertyRepository.saveAndFlush(property)).thenReturn(property);
+
+        PropertyResponse approved = propertyService.approve(3L);
+
+        assertEquals(Property.ApprovalStatus.APPROVED, approved.getApprovalStatus());
+        verify(events).publishEvent(new PropertyChangedEvent(property));
+    }
+
+    @Test
+    void reject_racingABooking_isAConflict() {
+        Property property = new Property("Lake View", "Hyderabad", 2000.0);
+        property.setId(3L);
+        when(propertyRepository.findById(3L)).thenReturn(Optional.of(property));
+        when(propertyRepository.saveAndFlush(property))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Property.class, 3L));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> propertyService.reject(3L));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        verify(events, never()).publishEvent(any());
+    }
+
+    @Test
+    void moderate_approvesPendingInOneUpdateAndPublishesOneEvent() {
+        Property first = new Property("Lake View", "Hyderabad", 2000.0);
+        first.setId(3L);
+        first.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+        Property second = new Property("Hill Top", "Ooty", 1500.0);
+        second.setId(4L);
+        second.setApprovalStatus(Property.ApprovalStatus.APPROVED);
+        PropertyModerationRequest request = new PropertyModerationRequest();
+        request.setDecision(Property.ApprovalStatus.APPROVED);
+        request.setIds(List.of(3L, 4L, 5L));
+
+        when(propertyRepository.findIdsToModerate(List.of(3L, 4L, 5L), Property.ApprovalStatus.APPROVED))
+                .thenReturn(List.of(3L, 4L));
+        when(propertyRepository.approveAll(List.of(3L, 4L))).thenReturn(2);
+        when(propertyRepository.findAllById(List.of(3L, 4L))).thenReturn(List.of(first, second));
+
+        ModerationSummary summary = propertyService.moderate(request);
+
+        assertEquals(3, summary.getMatched());
+        assertEquals(2, summary.getUpdated());
+        assertEquals(1, summary.getSkipped());
+        verify(propertyRepository, never()).save(any());
+        verify(events).publishEvent(new PropertyChangedEvent(List.of(first, second)));
+    }
+
+    @Test
+    void moderate_withEmptyIds_changesNothing() {
+        PropertyModerationRequest request = new PropertyModerationRequest();
+        request.setDecision(Property.ApprovalStatus.REJECTED);
+        request.setIds(List.of());
+
+        ModerationSummary summary = propertyService.moderate(request);
+
+        assertEquals(0, summary.getMatched());
+        assertEquals(0, summary.getUpdated());
+        verify(propertyRepository, never()).findPendingIds(any());
+        verify(propertyRepository, never()).rejectAll(any());
+        verify(events, never()).publishEvent(any());
+    }
+
+    private static PropertyResponse response(Long id, String name) {
+        Property property = new Property(name, "Hyderabad", 2000.0);
+        property.setId(id);
+        return PropertyResponse.from(property);
+    }
 }
@@ -0,0 +1,65 @@
+package com.example.rental.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class StreamingExporterTest {
+
+    private final StreamingExporter exporter =
+            new StreamingExporter(new ObjectMapper(), mock(PlatformTransactionManager.class));
+
+    @Test
+    void export_writesOneDocumentPerLineForNdjson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.export(() -> Stream.of(Map.of("id", 1), Map.of("id", 2)), ExportFormat.NDJSON, out);
+
+        assertEquals("{\"id\":1}\n{\"id\":2}", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void export_writesJsonArray() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.export(() -> Stream.of(Map.of("id", 1), Map.of("id", 2)), ExportFormat.JSON, out);
+
+        assertEquals("[{\"id\":1},{\"id\":2}]", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void export_closesCursorWhenClientDisconnects() {
+        AtomicBoolean closed = new AtomicBoolean();
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        Stream<Map<String, Integer>> rows = IntStream.range(0, 10_000)
+                .mapToObj(i -> Map.of("id", i))
+                .onClose(() -> closed.set(true));
+
+        assertThrows(IOException.class, () -> exporter.export(() -> rows, ExportFormat.NDJSON, disconnected));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void parse_rejectsUnknownFormat() {
+        assertEquals(ExportFormat.JSON, ExportFormat.parse("json"));
+        assertThrows(ResponseStatusException.class, () -> ExportFormat.parse("csv"));
+    }
+}